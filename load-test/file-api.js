@@ -0,0 +1,53 @@
+// 플랫폼 스레드와 가상 스레드 모드의 처리량, 지연 시간 비교용 k6 스크립트
+//
+// 1. spring.threads.virtual.enabled=false 로 기동한 뒤 실행하고 결과를 저장한다.
+//    k6 run -e BASE_URL=http://localhost:9000 -e FILE_ID=<저장된 파일ID> -e SERVICE_CODE=BOARD \
+//      --summary-export=platform.json load-test/file-api.js
+// 2. spring.threads.virtual.enabled=true 로 다시 기동한 뒤 같은 명령으로 virtual.json 을 만든다.
+// 3. 두 결과의 http_reqs(rate), http_req_duration(p(95), p(99))를 비교한다.
+//
+// 이 스크립트는 비교 방법만 제공한다. 측정 결과는 저장소에 없으며, 가상 스레드 모드가 더 빠르다고 가정하지 않는다.
+// 결과는 실행한 환경(CPU 수, 저장소 종류, DB, fileIoThreads, s3Threads)과 함께 기록해야 비교할 수 있다.
+// 두 모드는 같은 서버, 같은 설정, 같은 FILE_ID로 실행하고, 첫 실행은 캐시를 채우는 용도로 버린다.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:9000';
+const FILE_ID = __ENV.FILE_ID;
+const SERVICE_CODE = __ENV.SERVICE_CODE || 'BOARD';
+const UPLOAD = 'x'.repeat(Number(__ENV.UPLOAD_BYTES || 1024 * 1024));
+
+export const options = {
+  scenarios: {
+    download: {
+      executor: 'constant-vus',
+      exec: 'download',
+      vus: Number(__ENV.DOWNLOAD_VUS || 500),
+      duration: __ENV.DURATION || '2m',
+    },
+    upload: {
+      executor: 'constant-vus',
+      exec: 'upload',
+      vus: Number(__ENV.UPLOAD_VUS || 50),
+      duration: __ENV.DURATION || '2m',
+    },
+  },
+  summaryTrendStats: ['avg', 'p(50)', 'p(95)', 'p(99)', 'max'],
+};
+
+export function download() {
+  const res = http.get(`${BASE_URL}/files/${FILE_ID}/attach`, {
+    tags: { name: 'attach' },
+  });
+  check(res, { 'attach 200': (r) => r.status === 200 });
+}
+
+export function upload() {
+  const res = http.post(`${BASE_URL}/files/upload`, {
+    serviceCode: SERVICE_CODE,
+    files: http.file(UPLOAD, 'sample.bin'),
+  }, {
+    tags: { name: 'upload' },
+  });
+  check(res, { 'upload 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,71 @@
+package com.spring.file;
+
+import static org.mockito.Mockito.mock;
+
+import com.spring.file.crypto.AeadFileCipher;
+import com.spring.file.crypto.FileCipher;
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.mapper.FileDeleteMapper;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.storage.LocalFileStorage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+import org.springframework.core.task.SyncTaskExecutor;
+
+/**
+ * 벤치마크에서 Spring 컨텍스트(DB) 없이 서비스를 만든다.
+ */
+public final class BenchmarkSupport {
+
+  private BenchmarkSupport() {
+  }
+
+  /**
+   * application.yml 없이 기본값으로 바인딩한다.
+   */
+  public static FileProperties fileProperties(Path basePath) {
+    return fileProperties(basePath, Map.of());
+  }
+
+  public static FileProperties fileProperties(Path basePath, Map<String, String> properties) {
+    MapConfigurationPropertySource source = new MapConfigurationPropertySource(properties);
+    source.put("file.base-path", basePath.toString());
+
+    return new Binder(source).bindOrCreate("file", FileProperties.class);
+  }
+
+  public static FileCryptoService fileCryptoService(FileProperties fileProperties) {
+    FileCipher fileCipher = new AeadFileCipher(fileProperties.getEncryptorAlgorithm(),
+        fileProperties.getEncryptorPassword(), fileProperties.getEncryptorSalt());
+    FileStorageRegistry fileStorageRegistry = new FileStorageRegistry(fileProperties,
+        List.of(new LocalFileStorage(fileProperties)));
+
+    return new FileCryptoService(fileProperties, fileCipher, List.of(fileCipher),
+        new SyncTaskExecutor(), fileStorageRegistry, mock(FileDeleteMapper.class));
+  }
+
+  public static Path writeRandomFile(Path path, long size) throws IOException {
+    SplittableRandom random = new SplittableRandom(size);
+    byte[] buffer = new byte[1024 * 1024];
+
+    try (OutputStream out = Files.newOutputStream(path)) {
+      for (long remaining = size; remaining > 0; remaining -= buffer.length) {
+        for (int i = 0; i < buffer.length; i++) {
+          buffer[i] = (byte) random.nextInt();
+        }
+        out.write(buffer, 0, (int) Long.min(buffer.length, remaining));
+      }
+    }
+
+    return path;
+  }
+
+}
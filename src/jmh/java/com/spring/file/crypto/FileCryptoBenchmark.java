@@ -0,0 +1,81 @@
+package com.spring.file.crypto;
+
+import com.spring.file.BenchmarkSupport;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 업로드 임시 파일 기록(FileService.makeFile)과 다운로드 복호화(FileService.getResource)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class FileCryptoBenchmark {
+
+  @Param({"1024", "1048576", "104857600", "1073741824"})
+  private long fileSize;
+
+  @Param({"false", "true"})
+  private boolean plain;
+
+  private Path basePath;
+
+  private Path sourceFile;
+
+  private Path savedFile;
+
+  private Path tempFile;
+
+  private FileCryptoService fileCryptoService;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    basePath = Files.createTempDirectory("file-crypto-benchmark");
+    fileCryptoService = BenchmarkSupport.fileCryptoService(
+        BenchmarkSupport.fileProperties(basePath));
+
+    sourceFile = BenchmarkSupport.writeRandomFile(basePath.resolve("source"), fileSize);
+    savedFile = basePath.resolve("saved");
+    tempFile = basePath.resolve("temp");
+    try (InputStream in = Files.newInputStream(sourceFile);
+        OutputStream out = fileCryptoService.newOutputStream(savedFile, plain)) {
+      in.transferTo(out);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(basePath.toFile());
+  }
+
+  @Benchmark
+  public long encrypt() throws IOException {
+    try (InputStream in = Files.newInputStream(sourceFile);
+        OutputStream out = fileCryptoService.newOutputStream(tempFile, plain)) {
+      return in.transferTo(out);
+    }
+  }
+
+  @Benchmark
+  public long decrypt() throws IOException {
+    try (InputStream in = fileCryptoService.getResource(savedFile.toString()).getInputStream()) {
+      return in.transferTo(OutputStream.nullOutputStream());
+    }
+  }
+
+}
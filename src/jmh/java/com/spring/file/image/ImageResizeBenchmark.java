@@ -0,0 +1,107 @@
+package com.spring.file.image;
+
+import com.spring.file.BenchmarkSupport;
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.properties.FileProperties;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * 캐시에 없는 경우의 FileService.getResizeResource(복호화 + 디코딩 + resize + 인코딩)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ImageResizeBenchmark {
+
+  @Param({"jpg", "png", "gif", "bmp"})
+  private String formatName;
+
+  @Param({"640x480", "1920x1080", "4000x3000"})
+  private String imageSize;
+
+  @Param({"200"})
+  private int resizeSize;
+
+  private Path basePath;
+
+  private String location;
+
+  private FileCryptoService fileCryptoService;
+
+  private ImageResizer imageResizer;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    basePath = Files.createTempDirectory("image-resize-benchmark");
+    FileProperties fileProperties = BenchmarkSupport.fileProperties(basePath);
+    fileCryptoService = BenchmarkSupport.fileCryptoService(fileProperties);
+    imageResizer = new ImageResizer(fileProperties);
+
+    String[] size = imageSize.split("x");
+    Path path = basePath.resolve("image." + formatName);
+    fileCryptoService.encrypt(new ByteArrayInputStream(
+        createImage(Integer.parseInt(size[0]), Integer.parseInt(size[1]))), path);
+    location = path.toString();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(basePath.toFile());
+  }
+
+  @Benchmark
+  public byte[] resize() throws IOException {
+    try (InputStream in = fileCryptoService.decrypt(location)) {
+      return imageResizer.resize(in, formatName, resizeSize, resizeSize);
+    }
+  }
+
+  /**
+   * 압축률이 사진과 비슷하도록 그라데이션 위에 임의의 도형을 그린다.
+   */
+  private byte[] createImage(int width, int height) throws IOException {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    SplittableRandom random = new SplittableRandom(width * 31L + height);
+
+    Graphics2D graphics = image.createGraphics();
+    try {
+      graphics.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+      graphics.fillRect(0, 0, width, height);
+      for (int i = 0; i < 200; i++) {
+        graphics.setColor(new Color(random.nextInt(0x1000000)));
+        graphics.fillOval(random.nextInt(width), random.nextInt(height),
+            random.nextInt(1, width / 4), random.nextInt(1, height / 4));
+      }
+    } finally {
+      graphics.dispose();
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageIO.write(image, formatName, out);
+    return out.toByteArray();
+  }
+
+}
@@ -0,0 +1,150 @@
+package com.spring.file.service;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.spring.file.BenchmarkSupport;
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.image.ImageRenditionService;
+import com.spring.file.image.ImageResizeCache;
+import com.spring.file.image.ImageResizer;
+import com.spring.file.mapper.FileMapper;
+import com.spring.file.metrics.FileMetrics;
+import com.spring.file.model.FileDto;
+import com.spring.file.model.FileSaveDto;
+import com.spring.file.model.FileSaveRequestDto;
+import com.spring.file.model.FileSaveResponseDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorage;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.storage.LocalFileStorage;
+import com.spring.file.util.FileIdUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * FileService.save의 저장 목록 비교(유지/추가/삭제 분류)와 저장 경로 생성. DB, 저장소 호출은 mock으로 대체하므로
+ * 순수하게 서비스 코드의 비용만 측정한다. 저장된 파일 중 절반을 유지하고 같은 수만큼 새 파일을 추가한다.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class FileSaveBenchmark {
+
+  private static final String SERVICE_CODE = "BENCH";
+
+  @Param({"10", "100", "1000", "10000"})
+  private int fileCount;
+
+  @Param({"0", "2"})
+  private int shardDepth;
+
+  private Path basePath;
+
+  private FileService fileService;
+
+  private FileSaveRequestDto requestDto;
+
+  private FileStorage localFileStorage;
+
+  private final String fileId = FileIdUtils.newFileId();
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    basePath = Files.createTempDirectory("file-save-benchmark");
+    FileProperties fileProperties = BenchmarkSupport.fileProperties(basePath,
+        Map.of("file.shard-depth", String.valueOf(shardDepth)));
+    localFileStorage = new LocalFileStorage(fileProperties);
+
+    List<FileDto> savedFileList = new ArrayList<>();
+    List<FileSaveDto> requestFileList = new ArrayList<>();
+    for (int i = 0; i < fileCount; i++) {
+      FileDto savedFile = FileDto.builder()
+          .fileId(FileIdUtils.newFileId())
+          .filePath("save")
+          .fileName("saved" + i)
+          .fileExtension("txt")
+          .fileSize(1024)
+          .serviceCode(SERVICE_CODE)
+          .tableName("TB_BENCH")
+          .distinguishColumnValue("1")
+          .build();
+      savedFileList.add(savedFile);
+      if (i % 2 == 0) {
+        requestFileList.add(toFileSaveDto(savedFile.getFileId(), savedFile.getFileName()));
+      }
+    }
+
+    for (int i = 0; i < fileCount - fileCount / 2; i++) {
+      String fileId = FileIdUtils.newFileId();
+      Path tempFile = fileProperties.getTempFile(SERVICE_CODE, fileId);
+      Files.createDirectories(tempFile.getParent());
+      Files.createFile(tempFile);
+      requestFileList.add(toFileSaveDto(fileId, "new" + i));
+    }
+
+    requestDto = FileSaveRequestDto.builder()
+        .serviceCode(SERVICE_CODE)
+        .tableName("TB_BENCH")
+        .distinguishColumnValue("1")
+        .files(requestFileList)
+        .build();
+
+    FileMapper fileMapper = mock(FileMapper.class);
+    when(fileMapper.findByService(any())).thenReturn(savedFileList);
+    FileStorage fileStorage = mock(FileStorage.class);
+    FileStorageRegistry fileStorageRegistry = mock(FileStorageRegistry.class);
+    when(fileStorageRegistry.forService(any())).thenReturn(fileStorage);
+    when(fileStorageRegistry.forLocation(any())).thenReturn(fileStorage);
+
+    fileService = new FileService(fileProperties, mock(FileCryptoService.class), fileMapper,
+        mock(FileMetadataCache.class), mock(FileBlobService.class),
+        mock(FileDeleteService.class), mock(FileMoveService.class),
+        mock(FileTransferService.class), fileStorageRegistry,
+        mock(ImageResizeCache.class), mock(ImageResizer.class), mock(ImageRenditionService.class),
+        new FileMetrics(fileProperties, new SimpleMeterRegistry()));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    FileUtils.deleteDirectory(basePath.toFile());
+  }
+
+  @Benchmark
+  public FileSaveResponseDto save() throws IOException {
+    return fileService.save(requestDto);
+  }
+
+  @Benchmark
+  public String getServiceSavePath() {
+    return fileService.getServiceSavePath(localFileStorage, SERVICE_CODE, fileId);
+  }
+
+  private FileSaveDto toFileSaveDto(String fileId, String fileName) {
+    return FileSaveDto.builder()
+        .fileId(fileId)
+        .fileName(fileName)
+        .fileExtension("txt")
+        .fileSize(1024)
+        .build();
+  }
+
+}
@@ -1,10 +1,21 @@
 package com.spring.file.config;
 
+import com.spring.file.crypto.AeadFileCipher;
+import com.spring.file.crypto.FileCipher;
+import com.spring.file.crypto.PbeFileCipher;
+import com.spring.file.crypto.TimedFileCipher;
 import com.spring.file.properties.FileProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.concurrent.ThreadPoolExecutor;
 import lombok.RequiredArgsConstructor;
 import org.jasypt.encryption.pbe.StandardPBEByteEncryptor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 @RequiredArgsConstructor
 @Configuration
@@ -12,13 +23,111 @@ public class FileConfig {
 
   private final FileProperties fileProperties;
 
+  @Primary
   @Bean
-  public StandardPBEByteEncryptor fileEncryptor() {
+  public FileCipher fileCipher(MeterRegistry meterRegistry) {
+    return new TimedFileCipher(new AeadFileCipher(fileProperties.getEncryptorAlgorithm(),
+        fileProperties.getEncryptorPassword(), fileProperties.getEncryptorSalt()), meterRegistry);
+  }
+
+  @Bean
+  public FileCipher legacyFileCipher(MeterRegistry meterRegistry) {
     StandardPBEByteEncryptor encryptor = new StandardPBEByteEncryptor();
     encryptor.setPassword(fileProperties.getEncryptorPassword());
     encryptor.setAlgorithm("PBEWithMD5AndTripleDES");
 
-    return encryptor;
+    return new TimedFileCipher(new PbeFileCipher(encryptor), meterRegistry);
+  }
+
+  @Bean
+  public ThreadPoolTaskExecutor fileMigrationExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(1);
+    executor.setMaxPoolSize(1);
+    executor.setQueueCapacity(1000);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setThreadNamePrefix("file-migration-");
+
+    return executor;
+  }
+
+  /**
+   * 저장 파일 비교(FileReconcileService). 대기열이 없으므로 이전 비교가 끝나지 않았으면 새 비교를 받지 않는다.
+   */
+  @Bean
+  public ThreadPoolTaskExecutor fileReconcileExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(1);
+    executor.setMaxPoolSize(1);
+    executor.setQueueCapacity(0);
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setThreadNamePrefix("file-reconcile-");
+
+    return executor;
+  }
+
+  @ConditionalOnThreading(Threading.PLATFORM)
+  @Bean
+  public ThreadPoolTaskExecutor fileIoExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(fileProperties.getFileIoThreads());
+    executor.setMaxPoolSize(fileProperties.getFileIoThreads());
+    executor.setQueueCapacity(fileProperties.getFileIoThreads() * 16);
+    // 대기열이 가득 차면 요청 스레드에서 직접 처리한다. (호출한 쪽이 완료를 기다리므로)
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setThreadNamePrefix("file-io-");
+
+    return executor;
+  }
+
+  /**
+   * 가상 스레드 모드에서는 대기열 없이 작업마다 가상 스레드를 만들고, 동시 실행 수만 fileIoThreads로 제한한다.
+   */
+  @ConditionalOnThreading(Threading.VIRTUAL)
+  @Bean(name = "fileIoExecutor")
+  public SimpleAsyncTaskExecutor virtualFileIoExecutor() {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("file-io-");
+    executor.setVirtualThreads(true);
+    executor.setConcurrencyLimit(fileProperties.getFileIoThreads());
+
+    return executor;
+  }
+
+  /**
+   * 서비스별 임시 파일 정리(TempFileReaper)
+   */
+  @Bean
+  public ThreadPoolTaskExecutor tempReaperExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(fileProperties.getTempReaperThreads());
+    executor.setMaxPoolSize(fileProperties.getTempReaperThreads());
+    executor.setThreadNamePrefix("temp-reaper-");
+
+    return executor;
+  }
+
+  @Bean
+  public ThreadPoolTaskExecutor imageResizeExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(fileProperties.getResizeThreads());
+    executor.setMaxPoolSize(fileProperties.getResizeThreads());
+    executor.setQueueCapacity(fileProperties.getResizeQueueCapacity());
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setThreadNamePrefix("image-resize-");
+
+    return executor;
+  }
+
+  @Bean
+  public ThreadPoolTaskExecutor imageRenditionExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(fileProperties.getRenditionThreads());
+    executor.setMaxPoolSize(fileProperties.getRenditionThreads());
+    executor.setQueueCapacity(fileProperties.getRenditionQueueCapacity());
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+    executor.setThreadNamePrefix("image-rendition-");
+
+    return executor;
   }
 
 }
@@ -0,0 +1,49 @@
+package com.spring.file.config;
+
+import com.spring.file.properties.FileProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * reactive 프로필(spring.main.web-application-type=reactive) 설정
+ */
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@Configuration
+public class ReactiveConfig {
+
+  private final FileProperties fileProperties;
+
+  /**
+   * Tomcat이 classpath에 함께 있어도 Netty로 실행한다.
+   */
+  @Bean
+  public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+    return new NettyReactiveWebServerFactory();
+  }
+
+  /**
+   * 파일 암호화/복호화, 디스크 I/O
+   */
+  @Bean(destroyMethod = "dispose")
+  public Scheduler fileIoScheduler() {
+    return Schedulers.newBoundedElastic(fileProperties.getFileIoThreads(),
+        Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "file-io");
+  }
+
+  /**
+   * 블로킹 JDBC(MyBatis) 호출
+   */
+  @Bean(destroyMethod = "dispose")
+  public Scheduler fileJdbcScheduler() {
+    return Schedulers.newBoundedElastic(fileProperties.getReactiveJdbcThreads(),
+        Schedulers.DEFAULT_BOUNDED_ELASTIC_QUEUESIZE, "file-jdbc");
+  }
+
+}
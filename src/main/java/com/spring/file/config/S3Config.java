@@ -0,0 +1,74 @@
+package com.spring.file.config;
+
+import com.spring.file.properties.FileProperties;
+import java.net.URI;
+import java.util.concurrent.ThreadPoolExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "file", name = "s3-bucket")
+@Configuration
+public class S3Config {
+
+  private final FileProperties fileProperties;
+
+  @Bean(destroyMethod = "close")
+  public S3Client s3Client() {
+    S3ClientBuilder builder = S3Client.builder()
+        .region(Region.of(fileProperties.getS3Region()));
+
+    // MinIO 등 S3 호환 저장소는 endpoint를 지정하고 path-style로 접근한다.
+    if (StringUtils.hasText(fileProperties.getS3Endpoint())) {
+      builder.endpointOverride(URI.create(fileProperties.getS3Endpoint()))
+          .forcePathStyle(true);
+    }
+
+    if (StringUtils.hasText(fileProperties.getS3AccessKey())) {
+      builder.credentialsProvider(StaticCredentialsProvider.create(AwsBasicCredentials.create(
+          fileProperties.getS3AccessKey(), fileProperties.getS3SecretKey())));
+    } else {
+      builder.credentialsProvider(DefaultCredentialsProvider.create());
+    }
+
+    return builder.build();
+  }
+
+  @ConditionalOnThreading(Threading.PLATFORM)
+  @Bean
+  public ThreadPoolTaskExecutor s3TransferExecutor() {
+    ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(fileProperties.getS3Threads());
+    executor.setMaxPoolSize(fileProperties.getS3Threads());
+    executor.setQueueCapacity(fileProperties.getS3Threads() * 16);
+    // 대기열이 가득 차면 요청 스레드에서 직접 처리한다. (호출한 쪽이 완료를 기다리므로)
+    executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.setThreadNamePrefix("s3-transfer-");
+
+    return executor;
+  }
+
+  @ConditionalOnThreading(Threading.VIRTUAL)
+  @Bean(name = "s3TransferExecutor")
+  public SimpleAsyncTaskExecutor virtualS3TransferExecutor() {
+    SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("s3-transfer-");
+    executor.setVirtualThreads(true);
+    executor.setConcurrencyLimit(fileProperties.getS3Threads());
+
+    return executor;
+  }
+
+}
@@ -0,0 +1,23 @@
+package com.spring.file.config;
+
+import com.spring.file.web.FileResourceHttpMessageConverter;
+import java.util.List;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@ConditionalOnWebApplication(type = Type.SERVLET)
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    converters.replaceAll(converter -> converter.getClass() == ResourceHttpMessageConverter.class
+        ? new FileResourceHttpMessageConverter()
+        : converter);
+  }
+
+}
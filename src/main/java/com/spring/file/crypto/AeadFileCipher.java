@@ -0,0 +1,162 @@
+package com.spring.file.crypto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.InvalidKeyException;
+import java.security.SecureRandom;
+import java.security.spec.AlgorithmParameterSpec;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * AEAD(AES-GCM, ChaCha20-Poly1305) 구현체. 키는 생성 시 한 번만 유도하고 {@link Cipher}는 스레드마다 재사용한다.
+ * <p>
+ * 청크 : nonce(12) | ciphertext | tag(16). 청크 순서를 바꿔치기할 수 없도록 청크 번호를, 뒤쪽 청크를 잘라낼 수 없도록
+ * 마지막 청크 여부를 AAD로 사용한다(청크 번호(8) | 마지막 청크 1, 아니면 0(1)). 평문 크기(트레일러)는 마지막 청크의 크기로
+ * 확인한다({@link EncryptedFileReader}).
+ */
+public class AeadFileCipher implements FileCipher {
+
+  private static final int NONCE_LENGTH = 12;
+
+  private static final int TAG_LENGTH = 16;
+
+  private static final int KEY_LENGTH = 256;
+
+  private static final int KEY_ITERATIONS = 65536;
+
+  private static final int AAD_LENGTH = Long.BYTES + 1;
+
+  private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+
+  private final Algorithm algorithm;
+
+  private final SecretKey key;
+
+  private final ThreadLocal<Cipher> cipher;
+
+  public AeadFileCipher(Algorithm algorithm, String password, String salt) {
+    this.algorithm = algorithm;
+    this.key = deriveKey(algorithm, password, salt);
+    this.cipher = ThreadLocal.withInitial(this::newCipher);
+  }
+
+  @Override
+  public int getVersion() {
+    return algorithm.getVersion();
+  }
+
+  @Override
+  public byte[] encrypt(byte[] b, int off, int len, long chunkIndex, boolean lastChunk) {
+    byte[] encrypted = new byte[NONCE_LENGTH + len + TAG_LENGTH];
+    byte[] nonce = new byte[NONCE_LENGTH];
+    SECURE_RANDOM.nextBytes(nonce);
+    System.arraycopy(nonce, 0, encrypted, 0, NONCE_LENGTH);
+
+    try {
+      Cipher c = init(Cipher.ENCRYPT_MODE, nonce, chunkIndex, lastChunk);
+      c.doFinal(b, off, len, encrypted, NONCE_LENGTH);
+    } catch (GeneralSecurityException e) {
+      throw new FileCipherException("청크를 암호화할 수 없습니다. chunkIndex=" + chunkIndex, e);
+    }
+
+    return encrypted;
+  }
+
+  @Override
+  public byte[] decrypt(byte[] b, int off, int len, long chunkIndex, boolean lastChunk) {
+    if (len < NONCE_LENGTH + TAG_LENGTH) {
+      throw new FileCipherException("청크 크기가 너무 작습니다. chunkIndex=" + chunkIndex);
+    }
+
+    try {
+      byte[] nonce = Arrays.copyOfRange(b, off, off + NONCE_LENGTH);
+      Cipher c = init(Cipher.DECRYPT_MODE, nonce, chunkIndex, lastChunk);
+      return c.doFinal(b, off + NONCE_LENGTH, len - NONCE_LENGTH);
+    } catch (GeneralSecurityException e) {
+      throw new FileCipherException("청크를 복호화할 수 없습니다. chunkIndex=" + chunkIndex, e);
+    }
+  }
+
+  @Override
+  public boolean isLastChunkAuthenticated() {
+    return true;
+  }
+
+  @Override
+  public int getEncryptedLength(int len) {
+    return NONCE_LENGTH + len + TAG_LENGTH;
+  }
+
+  private Cipher init(int mode, byte[] nonce, long chunkIndex, boolean lastChunk)
+      throws GeneralSecurityException {
+    Cipher c = cipher.get();
+    try {
+      c.init(mode, key, algorithm.getParameterSpec(nonce));
+    } catch (InvalidKeyException e) {
+      // ChaCha20은 직전 초기화와 같은 키, nonce로 다시 초기화할 수 없다. (같은 청크를 연속으로 복호화하는 경우)
+      c = newCipher();
+      cipher.set(c);
+      c.init(mode, key, algorithm.getParameterSpec(nonce));
+    }
+    c.updateAAD(ByteBuffer.allocate(AAD_LENGTH)
+        .putLong(chunkIndex)
+        .put((byte) (lastChunk ? 1 : 0))
+        .array());
+
+    return c;
+  }
+
+  private Cipher newCipher() {
+    try {
+      return Cipher.getInstance(algorithm.getTransformation());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static SecretKey deriveKey(Algorithm algorithm, String password, String salt) {
+    try {
+      PBEKeySpec keySpec = new PBEKeySpec(password.toCharArray(), salt.getBytes(StandardCharsets.UTF_8),
+          KEY_ITERATIONS, KEY_LENGTH);
+      byte[] encoded = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+          .generateSecret(keySpec)
+          .getEncoded();
+      keySpec.clearPassword();
+
+      return new SecretKeySpec(encoded, algorithm.getKeyAlgorithm());
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Getter
+  @RequiredArgsConstructor
+  public enum Algorithm {
+    AES_GCM(EncryptedFileHeader.VERSION_AES_GCM_CHUNKED, "AES/GCM/NoPadding", "AES"),
+    CHACHA20_POLY1305(EncryptedFileHeader.VERSION_CHACHA20_POLY1305_CHUNKED, "ChaCha20-Poly1305",
+        "ChaCha20");
+
+    private final int version;
+
+    private final String transformation;
+
+    private final String keyAlgorithm;
+
+    AlgorithmParameterSpec getParameterSpec(byte[] nonce) {
+      return this == AES_GCM
+          ? new GCMParameterSpec(TAG_LENGTH * Byte.SIZE, nonce)
+          : new IvParameterSpec(nonce);
+    }
+  }
+
+}
@@ -0,0 +1,141 @@
+package com.spring.file.crypto;
+
+import com.spring.file.util.ChannelUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 받는 순서와 관계없이 청크를 파일의 정해진 위치에 암호화하여 기록한다. 마지막 청크를 제외한 청크는 암호문 크기가 같으므로 평문
+ * 위치로 파일 내 위치를 계산할 수 있고, 서로 다른 범위는 동시에 기록할 수 있다.
+ * <p>
+ * {@link #create}로 헤더와 트레일러를 먼저 기록하여 최종 크기의 파일을 만든 뒤, 청크를 채운다. 마지막 청크 여부는 트레일러의
+ * 평문 크기로 정한다.
+ */
+public class EncryptedFileChunkWriter {
+
+  private final FileChannel channel;
+
+  private final EncryptedFileHeader header;
+
+  private final FileCipher cipher;
+
+  private final long stride;
+
+  /**
+   * @param cipher 평문 저장 파일(version 0)이면 null
+   */
+  public EncryptedFileChunkWriter(FileChannel channel, EncryptedFileHeader header,
+      FileCipher cipher) {
+    this.channel = channel;
+    this.header = header;
+    this.cipher = cipher;
+    this.stride = header.isPlain()
+        ? 0
+        : EncryptedFileHeader.CHUNK_LENGTH_FIELD_SIZE
+            + cipher.getEncryptedLength(header.getChunkSize());
+  }
+
+  public void create(long plainLength) throws IOException {
+    writeAt(header.toByteBuffer(), 0);
+    if (!header.isPlain() && plainLength == 0) {
+      writeChunk(new byte[0], 0, 0, true);
+    }
+    writeAt(ByteBuffer.allocate(EncryptedFileHeader.TRAILER_LENGTH)
+        .putLong(plainLength)
+        .flip(), getPosition(plainLength));
+  }
+
+  /**
+   * offset부터 in의 끝까지 기록하고 기록한 평문 크기를 반환한다. offset은 청크 크기의 배수여야 한다.
+   */
+  public long write(long offset, InputStream in) throws IOException {
+    if (header.isPlain()) {
+      return writePlain(offset, in);
+    }
+
+    int chunkSize = header.getChunkSize();
+    if (offset % chunkSize != 0) {
+      throw new IOException("청크 크기의 배수 위치에만 기록할 수 있습니다. offset=" + offset);
+    }
+
+    byte[] chunk = new byte[chunkSize];
+    long chunkIndex = offset / chunkSize;
+    long lastChunkIndex = getLastChunkIndex(readPlainLength());
+    long length = 0;
+    int read;
+    while ((read = in.readNBytes(chunk, 0, chunkSize)) > 0) {
+      writeChunk(chunk, read, chunkIndex, chunkIndex == lastChunkIndex);
+
+      chunkIndex++;
+      length += read;
+      if (read < chunkSize) {
+        break;
+      }
+    }
+
+    return length;
+  }
+
+  private void writeChunk(byte[] chunk, int length, long chunkIndex, boolean lastChunk)
+      throws IOException {
+    byte[] encrypted = cipher.encrypt(chunk, 0, length, chunkIndex, lastChunk);
+    writeAt(ByteBuffer.allocate(EncryptedFileHeader.CHUNK_LENGTH_FIELD_SIZE + encrypted.length)
+        .putInt(encrypted.length)
+        .put(encrypted)
+        .flip(), EncryptedFileHeader.LENGTH + chunkIndex * stride);
+  }
+
+  private long writePlain(long offset, InputStream in) throws IOException {
+    byte[] buffer = new byte[64 * 1024];
+    long length = 0;
+    int read;
+    while ((read = in.read(buffer)) >= 0) {
+      writeAt(ByteBuffer.wrap(buffer, 0, read), EncryptedFileHeader.LENGTH + offset + length);
+      length += read;
+    }
+
+    return length;
+  }
+
+  /**
+   * 평문 plainLength 바이트를 모두 기록했을 때의 파일 내 위치. (트레일러 위치)
+   */
+  private long getPosition(long plainLength) {
+    if (header.isPlain()) {
+      return EncryptedFileHeader.LENGTH + plainLength;
+    }
+
+    int chunkSize = header.getChunkSize();
+    long chunkCount = plainLength / chunkSize;
+    int remaining = (int) (plainLength % chunkSize);
+    long position = EncryptedFileHeader.LENGTH + chunkCount * stride;
+    if (remaining > 0 || plainLength == 0) {
+      position += EncryptedFileHeader.CHUNK_LENGTH_FIELD_SIZE + cipher.getEncryptedLength(remaining);
+    }
+
+    return position;
+  }
+
+  /**
+   * 빈 파일도 빈 마지막 청크 하나를 가진다.
+   */
+  private long getLastChunkIndex(long plainLength) {
+    return plainLength == 0 ? 0 : (plainLength - 1) / header.getChunkSize();
+  }
+
+  private long readPlainLength() throws IOException {
+    ByteBuffer trailer = ByteBuffer.allocate(EncryptedFileHeader.TRAILER_LENGTH);
+    ChannelUtils.readFully(channel.position(channel.size() - trailer.capacity()), trailer);
+
+    return trailer.flip().getLong();
+  }
+
+  private void writeAt(ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+}
@@ -0,0 +1,87 @@
+package com.spring.file.crypto;
+
+import com.spring.file.util.ChannelUtils;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.util.Arrays;
+import java.util.Optional;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 청크 암호화 파일 포맷.
+ *
+ * <pre>
+ * header  : MAGIC(4) | version(1) | chunkSize(4)
+ * chunk   : length(4) | encrypted chunk(length) ... (반복)
+ * trailer : plainLength(8)
+ * </pre>
+ * <p>
+ * 마지막 청크를 제외한 모든 청크는 같은 평문 크기(chunkSize)를 가지므로 암호문 크기도 같다.
+ * <p>
+ * 평문 저장 서비스의 파일(version 0)은 청크 영역 대신 평문이 그대로 기록된다.
+ */
+@ToString
+@EqualsAndHashCode
+@Getter
+@RequiredArgsConstructor
+public class EncryptedFileHeader {
+
+  public static final int VERSION_PLAIN = 0;
+
+  public static final int VERSION_PBE_CHUNKED = 1;
+
+  public static final int VERSION_AES_GCM_CHUNKED = 2;
+
+  public static final int VERSION_CHACHA20_POLY1305_CHUNKED = 3;
+
+  public static final int LENGTH = 9;
+
+  public static final int CHUNK_LENGTH_FIELD_SIZE = Integer.BYTES;
+
+  public static final int TRAILER_LENGTH = Long.BYTES;
+
+  private static final byte[] MAGIC = {'S', 'F', 'E', 'C'};
+
+  private final int version;
+
+  private final int chunkSize;
+
+  public boolean isPlain() {
+    return version == VERSION_PLAIN;
+  }
+
+  public ByteBuffer toByteBuffer() {
+    return ByteBuffer.allocate(LENGTH)
+        .put(MAGIC)
+        .put((byte) version)
+        .putInt(chunkSize)
+        .flip();
+  }
+
+  /**
+   * 헤더가 없는(청크 포맷 이전에 저장된) 파일이면 empty를 반환한다.
+   */
+  public static Optional<EncryptedFileHeader> read(SeekableByteChannel channel)
+      throws IOException {
+    if (channel.size() < LENGTH + TRAILER_LENGTH) {
+      return Optional.empty();
+    }
+
+    ByteBuffer buffer = ByteBuffer.allocate(LENGTH);
+    ChannelUtils.readFully(channel.position(0), buffer);
+    buffer.flip();
+
+    byte[] magic = new byte[MAGIC.length];
+    buffer.get(magic);
+    if (!Arrays.equals(MAGIC, magic)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(new EncryptedFileHeader(buffer.get(), buffer.getInt()));
+  }
+
+}
@@ -0,0 +1,62 @@
+package com.spring.file.crypto;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * {@link EncryptedFileOutputStream}으로 기록된 파일을 복호화하며 읽는다. {@link #skip(long)}은 건너뛴 청크를
+ * 복호화하지 않는다.
+ */
+public class EncryptedFileInputStream extends InputStream {
+
+  private final EncryptedFileReader reader;
+
+  private long position;
+
+  public EncryptedFileInputStream(EncryptedFileReader reader) {
+    this.reader = reader;
+  }
+
+  public long getPlainLength() {
+    return reader.getPlainLength();
+  }
+
+  @Override
+  public int read() throws IOException {
+    byte[] b = new byte[1];
+    return read(b, 0, 1) < 0 ? -1 : b[0] & 0xFF;
+  }
+
+  @Override
+  public int read(byte[] b, int off, int len) throws IOException {
+    if (len == 0) {
+      return 0;
+    }
+
+    int length = reader.read(position, b, off, len);
+    if (length > 0) {
+      position += length;
+    }
+
+    return length;
+  }
+
+  @Override
+  public long skip(long n) {
+    long skipped = Math.max(0, Math.min(n, reader.getPlainLength() - position));
+    position += skipped;
+
+    return skipped;
+  }
+
+  @Override
+  public int available() {
+    return (int) Math.min(Integer.MAX_VALUE, reader.getPlainLength() - position);
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+}
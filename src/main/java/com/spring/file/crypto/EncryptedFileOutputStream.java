@@ -0,0 +1,86 @@
+package com.spring.file.crypto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 평문을 chunkSize 단위로 모아 청크별로 암호화하여 기록한다. 파일 크기와 관계없이 청크 하나 만큼의 메모리만 사용한다.
+ * <p>
+ * 가득 찬 청크도 다음 내용이 들어올 때까지 기록하지 않고 두어, 닫을 때 마지막 청크로 암호화한다. 빈 파일도 빈 마지막 청크를
+ * 하나 기록한다.
+ */
+public class EncryptedFileOutputStream extends OutputStream {
+
+  private final DataOutputStream out;
+
+  private final FileCipher cipher;
+
+  private final byte[] chunk;
+
+  private int chunkPosition;
+
+  private long plainLength;
+
+  private long chunkIndex;
+
+  private boolean closed;
+
+  public EncryptedFileOutputStream(OutputStream out, FileCipher cipher, int chunkSize)
+      throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+    this.cipher = cipher;
+    this.chunk = new byte[chunkSize];
+
+    EncryptedFileHeader header = new EncryptedFileHeader(cipher.getVersion(), chunkSize);
+    this.out.write(header.toByteBuffer().array());
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("이미 닫힌 스트림입니다.");
+    }
+
+    while (len > 0) {
+      if (chunkPosition == chunk.length) {
+        writeChunk(false);
+      }
+
+      int length = Math.min(len, chunk.length - chunkPosition);
+      System.arraycopy(b, off, chunk, chunkPosition, length);
+      chunkPosition += length;
+      plainLength += length;
+      off += length;
+      len -= length;
+    }
+  }
+
+  private void writeChunk(boolean lastChunk) throws IOException {
+    byte[] encrypted = cipher.encrypt(chunk, 0, chunkPosition, chunkIndex++, lastChunk);
+
+    out.writeInt(encrypted.length);
+    out.write(encrypted);
+    chunkPosition = 0;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    try (out) {
+      writeChunk(true);
+      out.writeLong(plainLength);
+    }
+  }
+
+}
@@ -0,0 +1,218 @@
+package com.spring.file.crypto;
+
+import com.spring.file.util.ChannelUtils;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * 청크 암호화 파일의 임의 위치를 읽는다. 요청한 위치를 포함하는 청크만 복호화한다.
+ * <p>
+ * 마지막 청크 여부를 인증하는 cipher({@link FileCipher#isLastChunkAuthenticated()})이면 열 때 마지막 청크를 복호화하여
+ * 트레일러의 평문 크기와 맞는지 확인하므로, 뒤쪽 청크를 잘라내고 트레일러를 고친 파일은 읽지 않는다.
+ */
+public class EncryptedFileReader implements Closeable {
+
+  private static final int PLAIN_TRANSFER_LENGTH = 64 * 1024;
+
+  /**
+   * 평문 파일을 버퍼로 복사할 때 사용한다. 가상 스레드는 요청마다 새로 만들어지므로 스레드별로 두지 않고 전송이 끝나면 반납하여
+   * 다시 사용한다.
+   */
+  private static final BlockingQueue<ByteBuffer> TRANSFER_BUFFERS = new ArrayBlockingQueue<>(32);
+
+  private final SeekableByteChannel channel;
+
+  private final FileCipher cipher;
+
+  private final EncryptedFileHeader header;
+
+  private final long plainLength;
+
+  private final long chunkStride;
+
+  private final long lastChunkIndex;
+
+  private final ByteBuffer lengthBuffer = ByteBuffer.allocate(
+      EncryptedFileHeader.CHUNK_LENGTH_FIELD_SIZE);
+
+  private long chunkIndex = -1;
+
+  private byte[] chunk;
+
+  public EncryptedFileReader(SeekableByteChannel channel, EncryptedFileHeader header,
+      FileCipher cipher) throws IOException {
+    this.channel = channel;
+    this.cipher = cipher;
+    this.header = header;
+
+    ByteBuffer trailer = ByteBuffer.allocate(EncryptedFileHeader.TRAILER_LENGTH);
+    ChannelUtils.readFully(channel.position(channel.size() - trailer.capacity()), trailer);
+    this.plainLength = trailer.flip().getLong();
+
+    // 마지막 청크를 제외한 청크는 암호문 크기가 같으므로 첫 청크의 크기로 모든 청크의 위치를 계산한다.
+    this.chunkStride = !header.isPlain() && plainLength > header.getChunkSize()
+        ? EncryptedFileHeader.CHUNK_LENGTH_FIELD_SIZE + readChunkLength(0)
+        : 0;
+    this.lastChunkIndex = header.isPlain() || plainLength == 0
+        ? 0
+        : (plainLength - 1) / header.getChunkSize();
+
+    if (!header.isPlain() && cipher.isLastChunkAuthenticated()) {
+      loadChunk(lastChunkIndex);
+      if (chunk.length != plainLength - lastChunkIndex * header.getChunkSize()) {
+        throw new FileCipherException("평문 크기가 마지막 청크와 맞지 않습니다. plainLength=" + plainLength);
+      }
+    }
+  }
+
+  /**
+   * 이미 확인한 파일을 다시 연다. 트레일러와 첫 청크 길이를 읽지 않고 마지막 청크도 다시 확인하지 않는다.
+   */
+  public EncryptedFileReader(SeekableByteChannel channel, EncryptedFileHeader header,
+      FileCipher cipher, long plainLength, long chunkStride) {
+    this.channel = channel;
+    this.cipher = cipher;
+    this.header = header;
+    this.plainLength = plainLength;
+    this.chunkStride = chunkStride;
+    this.lastChunkIndex = header.isPlain() || plainLength == 0
+        ? 0
+        : (plainLength - 1) / header.getChunkSize();
+  }
+
+  public EncryptedFileHeader getHeader() {
+    return header;
+  }
+
+  public long getPlainLength() {
+    return plainLength;
+  }
+
+  public long getChunkStride() {
+    return chunkStride;
+  }
+
+  public int read(long position, byte[] b, int off, int len) throws IOException {
+    if (position >= plainLength) {
+      return -1;
+    }
+
+    if (header.isPlain()) {
+      ByteBuffer buffer = ByteBuffer.wrap(b, off, (int) Math.min(len, plainLength - position));
+      return channel.position(EncryptedFileHeader.LENGTH + position).read(buffer);
+    }
+
+    int chunkSize = header.getChunkSize();
+    loadChunk(position / chunkSize);
+
+    int chunkPosition = (int) (position % chunkSize);
+    int length = Math.min(len, chunk.length - chunkPosition);
+    System.arraycopy(chunk, chunkPosition, b, off, length);
+
+    return length;
+  }
+
+  /**
+   * 파일 전체를 복호화하여 target에 기록한다. 평문 파일이면 {@link FileChannel#transferTo}로 복사한다. target이 파일이나
+   * 소켓 채널이 아니면(예: OutputStream을 감싼 채널) JDK가 내부 버퍼로 복사하므로 zero-copy가 아니다. transferTo가 더
+   * 진행하지 못하면 남은 부분은 버퍼로 복사한다.
+   * <p>
+   * 암호화 파일은 cipher가 byte[]만 받으므로 암호문을 힙 버퍼로 바로 읽어 복호화한다.
+   */
+  public long transferTo(WritableByteChannel target) throws IOException {
+    if (!header.isPlain()) {
+      return transferDecrypted(target);
+    }
+
+    long transferred = 0;
+    if (channel instanceof FileChannel fileChannel) {
+      while (transferred < plainLength) {
+        long count = fileChannel.transferTo(EncryptedFileHeader.LENGTH + transferred,
+            plainLength - transferred, target);
+        if (count <= 0) {
+          break;
+        }
+        transferred += count;
+      }
+      if (transferred == plainLength) {
+        return transferred;
+      }
+    }
+
+    ByteBuffer buffer = TRANSFER_BUFFERS.poll();
+    if (buffer == null) {
+      buffer = ByteBuffer.allocateDirect(PLAIN_TRANSFER_LENGTH);
+    }
+    channel.position(EncryptedFileHeader.LENGTH + transferred);
+
+    try {
+      while (transferred < plainLength) {
+        buffer.clear().limit((int) Math.min(plainLength - transferred, PLAIN_TRANSFER_LENGTH));
+        ChannelUtils.readFully(channel, buffer);
+        transferred += ChannelUtils.writeFully(target, buffer.flip());
+      }
+    } finally {
+      TRANSFER_BUFFERS.offer(buffer);
+    }
+
+    return transferred;
+  }
+
+  private long transferDecrypted(WritableByteChannel target) throws IOException {
+    ByteBuffer encrypted = ByteBuffer.allocate(0);
+    long transferred = 0;
+    channel.position(EncryptedFileHeader.LENGTH);
+
+    for (long index = 0; transferred < plainLength; index++) {
+      int length = readChunkLength();
+      if (encrypted.capacity() < length) {
+        encrypted = ByteBuffer.allocate(length);
+      }
+      encrypted.clear().limit(length);
+      ChannelUtils.readFully(channel, encrypted);
+
+      byte[] decrypted = cipher.decrypt(encrypted.array(), 0, length, index,
+          index == lastChunkIndex);
+      transferred += ChannelUtils.writeFully(target, ByteBuffer.wrap(decrypted));
+    }
+
+    return transferred;
+  }
+
+  private void loadChunk(long index) throws IOException {
+    if (index == chunkIndex) {
+      return;
+    }
+
+    ByteBuffer encrypted = ByteBuffer.allocate(readChunkLength(index * chunkStride));
+    ChannelUtils.readFully(channel, encrypted);
+
+    chunk = cipher.decrypt(encrypted.array(), 0, encrypted.capacity(), index,
+        index == lastChunkIndex);
+    chunkIndex = index;
+  }
+
+  private int readChunkLength(long chunkOffset) throws IOException {
+    channel.position(EncryptedFileHeader.LENGTH + chunkOffset);
+    return readChunkLength();
+  }
+
+  private int readChunkLength() throws IOException {
+    lengthBuffer.clear();
+    ChannelUtils.readFully(channel, lengthBuffer);
+
+    return lengthBuffer.flip().getInt();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+}
@@ -0,0 +1,84 @@
+package com.spring.file.crypto;
+
+import com.spring.file.storage.FileStorage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.AbstractResource;
+
+/**
+ * 청크 암호화 파일을 복호화하여 제공하는 {@link org.springframework.core.io.Resource}. 범위 요청 시 해당 범위의 청크만
+ * 복호화한다. 만들 때 확인한 헤더, 평문 크기, 청크 간격으로 다시 열므로 트레일러와 마지막 청크를 다시 읽지 않는다.
+ */
+@RequiredArgsConstructor
+public class EncryptedFileResource extends AbstractResource {
+
+  private final FileCryptoService fileCryptoService;
+
+  private final FileStorage fileStorage;
+
+  private final String location;
+
+  private final EncryptedFileHeader header;
+
+  private final long contentLength;
+
+  private final long chunkStride;
+
+  /**
+   * 로컬 디스크에 있는 파일이면 경로를 반환한다.
+   */
+  public Optional<Path> getLocalPath() {
+    return fileStorage.getLocalPath(location);
+  }
+
+  /**
+   * 평문 저장 파일이면 파일 내 평문 시작 위치부터 contentLength 만큼을 그대로 전송할 수 있다.
+   */
+  public boolean isPlain() {
+    return header.isPlain();
+  }
+
+  public long getContentOffset() {
+    return EncryptedFileHeader.LENGTH;
+  }
+
+  public long transferTo(WritableByteChannel target) throws IOException {
+    try (EncryptedFileReader reader = reopenReader()) {
+      return reader.transferTo(target);
+    }
+  }
+
+  @Override
+  public boolean exists() {
+    try {
+      return fileStorage.exists(location);
+    } catch (IOException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public long contentLength() {
+    return contentLength;
+  }
+
+  @Override
+  public InputStream getInputStream() throws IOException {
+    return new EncryptedFileInputStream(reopenReader());
+  }
+
+  @Override
+  public String getDescription() {
+    return "Encrypted file [" + location + "]";
+  }
+
+  private EncryptedFileReader reopenReader() throws IOException {
+    return fileCryptoService.reopenReader(fileStorage, location, header, contentLength,
+        chunkStride);
+  }
+
+}
@@ -0,0 +1,33 @@
+package com.spring.file.crypto;
+
+/**
+ * 청크 단위 암복호화 엔진. 구현체마다 고유한 {@link #getVersion() version}을 가지며, 이 값이 파일 헤더에 기록되어 복호화할 때
+ * 사용할 구현체를 결정한다.
+ */
+public interface FileCipher {
+
+  int getVersion();
+
+  /**
+   * @param lastChunk 파일의 마지막 청크인지. {@link #isLastChunkAuthenticated()}이면 함께 인증한다.
+   */
+  byte[] encrypt(byte[] b, int off, int len, long chunkIndex, boolean lastChunk);
+
+  /**
+   * @throws FileCipherException 복호화, 인증에 실패한 경우
+   */
+  byte[] decrypt(byte[] b, int off, int len, long chunkIndex, boolean lastChunk);
+
+  /**
+   * true이면 마지막 청크 여부를 인증하므로, 뒤쪽 청크를 잘라내고 트레일러(plainLength)를 고친 파일을 복호화할 때 알 수 있다.
+   */
+  default boolean isLastChunkAuthenticated() {
+    return false;
+  }
+
+  /**
+   * 평문 len 바이트를 암호화한 결과의 크기
+   */
+  int getEncryptedLength(int len);
+
+}
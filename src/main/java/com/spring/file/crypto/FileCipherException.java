@@ -0,0 +1,16 @@
+package com.spring.file.crypto;
+
+/**
+ * 청크를 암호화, 복호화할 수 없는 경우. 복호화에서는 인증에 실패한 경우(변조, 다른 키, 뒤쪽 청크가 잘린 파일)를 포함한다.
+ */
+public class FileCipherException extends RuntimeException {
+
+  public FileCipherException(String message) {
+    super(message);
+  }
+
+  public FileCipherException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -0,0 +1,285 @@
+package com.spring.file.crypto;
+
+import com.spring.file.mapper.FileDeleteMapper;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorage;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.util.ChannelUtils;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+public class FileCryptoService {
+
+  private static final String MIGRATING_FOLDER = ".migrating";
+
+  private final FileProperties fileProperties;
+  private final FileCipher fileCipher;
+  private final Map<Integer, FileCipher> fileCiphers;
+  private final TaskExecutor fileMigrationExecutor;
+  private final FileStorageRegistry fileStorageRegistry;
+  private final FileDeleteMapper fileDeleteMapper;
+  private final Set<String> migratingLocations = ConcurrentHashMap.newKeySet();
+
+  public FileCryptoService(FileProperties fileProperties, FileCipher fileCipher,
+      List<FileCipher> fileCiphers,
+      @Qualifier("fileMigrationExecutor") TaskExecutor fileMigrationExecutor,
+      FileStorageRegistry fileStorageRegistry, FileDeleteMapper fileDeleteMapper) {
+    this.fileProperties = fileProperties;
+    this.fileStorageRegistry = fileStorageRegistry;
+    this.fileDeleteMapper = fileDeleteMapper;
+    this.fileCipher = fileCipher;
+    this.fileCiphers = fileCiphers.stream()
+        .collect(Collectors.toMap(FileCipher::getVersion, Function.identity()));
+    this.fileMigrationExecutor = fileMigrationExecutor;
+  }
+
+  public long encrypt(InputStream inputStream, Path path) throws IOException {
+    try (InputStream in = inputStream;
+        OutputStream out = newOutputStream(path, false)) {
+      return in.transferTo(out);
+    }
+  }
+
+  public long writePlain(InputStream inputStream, Path path) throws IOException {
+    try (InputStream in = inputStream;
+        OutputStream out = newOutputStream(path, true)) {
+      return in.transferTo(out);
+    }
+  }
+
+  /**
+   * 평문을 써 넣으면 암호화(plain이면 평문 포맷)하여 기록하는 스트림. 닫아야 파일이 완성된다.
+   */
+  public OutputStream newOutputStream(Path path, boolean plain) throws IOException {
+    Files.createDirectories(path.getParent());
+
+    OutputStream out = Files.newOutputStream(path);
+    return plain
+        ? new PlainFileOutputStream(out)
+        : new EncryptedFileOutputStream(out, fileCipher, fileProperties.getEncryptChunkSize());
+  }
+
+  /**
+   * 청크를 나누어 받는 파일을 최종 크기로 만든다. 청크는 {@link #writeChunk}로 순서와 관계없이 기록한다.
+   *
+   * @return 청크 위치 단위(평문 바이트). 평문 저장이면 1
+   */
+  public int createChunked(Path path, boolean plain, long plainLength) throws IOException {
+    Files.createDirectories(path.getParent());
+    EncryptedFileHeader header = plain
+        ? new EncryptedFileHeader(EncryptedFileHeader.VERSION_PLAIN, 0)
+        : new EncryptedFileHeader(fileCipher.getVersion(), fileProperties.getEncryptChunkSize());
+
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE)) {
+      new EncryptedFileChunkWriter(channel, header, plain ? null : fileCipher)
+          .create(plainLength);
+    }
+
+    return plain ? 1 : header.getChunkSize();
+  }
+
+  /**
+   * offset(평문 위치)부터 in의 내용을 암호화하여 기록하고 기록한 평문 크기를 반환한다. 기록한 내용은 디스크에 반영한 뒤
+   * 반환한다.
+   */
+  public long writeChunk(Path path, long offset, InputStream in) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      EncryptedFileHeader header = EncryptedFileHeader.read(channel)
+          .orElseThrow(() -> new IOException("청크 파일이 아닙니다. path=" + path));
+      long length = new EncryptedFileChunkWriter(channel, header,
+          getFileCipher(header.getVersion())).write(offset, in);
+      channel.force(false);
+
+      return length;
+    }
+  }
+
+  public InputStream decrypt(Path path) throws IOException {
+    return decrypt(path.toString());
+  }
+
+  /**
+   * @param location 저장소 위치 ({@link FileStorage})
+   */
+  public InputStream decrypt(String location) throws IOException {
+    FileStorage fileStorage = fileStorageRegistry.forLocation(location);
+    Optional<EncryptedFileReader> reader = openReader(fileStorage, location);
+    if (reader.isPresent()) {
+      return new EncryptedFileInputStream(reader.get());
+    }
+
+    return new ByteArrayInputStream(decryptLegacy(fileStorage, location));
+  }
+
+  /**
+   * 현재 암호화 방식으로 저장되지 않은 파일은 백그라운드에서 현재 방식으로 다시 암호화한다.
+   */
+  public Resource getResource(String location) throws IOException {
+    FileStorage fileStorage = fileStorageRegistry.forLocation(location);
+    Optional<EncryptedFileReader> reader = openReader(fileStorage, location);
+    if (reader.isPresent()) {
+      try (EncryptedFileReader encryptedFileReader = reader.get()) {
+        EncryptedFileHeader header = encryptedFileReader.getHeader();
+        if (!header.isPlain()) {
+          migrateIfOutdated(location, header.getVersion());
+        }
+
+        return new EncryptedFileResource(this, fileStorage, location, header,
+            encryptedFileReader.getPlainLength(), encryptedFileReader.getChunkStride());
+      }
+    }
+
+    migrateIfOutdated(location, EncryptedFileHeader.VERSION_PBE_CHUNKED);
+    return new ByteArrayResource(decryptLegacy(fileStorage, location));
+  }
+
+  public long transferTo(String location, WritableByteChannel target) throws IOException {
+    FileStorage fileStorage = fileStorageRegistry.forLocation(location);
+    Optional<EncryptedFileReader> reader = openReader(fileStorage, location);
+    if (reader.isPresent()) {
+      try (EncryptedFileReader encryptedFileReader = reader.get()) {
+        return encryptedFileReader.transferTo(target);
+      }
+    }
+
+    return ChannelUtils.writeFully(target,
+        ByteBuffer.wrap(decryptLegacy(fileStorage, location)));
+  }
+
+  private Optional<EncryptedFileReader> openReader(FileStorage fileStorage, String location)
+      throws IOException {
+    SeekableByteChannel channel = fileStorage.open(location);
+
+    try {
+      Optional<EncryptedFileHeader> header = EncryptedFileHeader.read(channel);
+      if (header.isPresent()) {
+        return Optional.of(new EncryptedFileReader(channel, header.get(),
+            getFileCipher(header.get().getVersion())));
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    channel.close();
+
+    return Optional.empty();
+  }
+
+  /**
+   * {@link #getResource}에서 연 파일을 다시 연다. 헤더가 같으면 트레일러와 마지막 청크를 다시 읽지 않고, 그 사이 다른 방식으로
+   * 다시 암호화되었으면 처음부터 연다.
+   */
+  EncryptedFileReader reopenReader(FileStorage fileStorage, String location,
+      EncryptedFileHeader header, long plainLength, long chunkStride) throws IOException {
+    SeekableByteChannel channel = fileStorage.open(location);
+
+    try {
+      if (EncryptedFileHeader.read(channel).filter(header::equals).isPresent()) {
+        return new EncryptedFileReader(channel, header, getFileCipher(header.getVersion()),
+            plainLength, chunkStride);
+      }
+    } catch (IOException | RuntimeException e) {
+      channel.close();
+      throw e;
+    }
+    channel.close();
+
+    return openReader(fileStorage, location).orElseThrow(() -> new FileCipherException(
+        "청크 암호화 파일이 아닙니다. location=" + location));
+  }
+
+  private FileCipher getFileCipher(int version) throws IOException {
+    FileCipher cipher = fileCiphers.get(version);
+    if (cipher == null && version != EncryptedFileHeader.VERSION_PLAIN) {
+      throw new IOException("지원하지 않는 파일 암호화 버전입니다. version=" + version);
+    }
+
+    return cipher;
+  }
+
+  /**
+   * 청크 포맷 이전에 파일 전체를 한 번에 암호화하여 저장한 파일. 범위 읽기를 지원하지 않는다.
+   */
+  private byte[] decryptLegacy(FileStorage fileStorage, String location) throws IOException {
+    byte[] encrypted;
+    try (InputStream in = fileStorage.get(location, 0, fileStorage.size(location))) {
+      encrypted = in.readAllBytes();
+    }
+    return getFileCipher(EncryptedFileHeader.VERSION_PBE_CHUNKED)
+        .decrypt(encrypted, 0, encrypted.length, 0, true);
+  }
+
+  private void migrateIfOutdated(String location, int version) {
+    if (!fileProperties.getLazyMigration() || version == fileCipher.getVersion()
+        || !migratingLocations.add(location)) {
+      return;
+    }
+
+    try {
+      fileMigrationExecutor.execute(() -> {
+        try {
+          migrate(location);
+        } catch (Exception e) {
+          log.warn("파일 암호화 방식 변환에 실패했습니다. location={}", location, e);
+        } finally {
+          migratingLocations.remove(location);
+        }
+      });
+    } catch (TaskRejectedException e) {
+      migratingLocations.remove(location);
+    }
+  }
+
+  /**
+   * 임시 폴더에 다시 암호화한 뒤 저장소의 파일을 교체한다. 그동안 삭제되었거나(삭제 대기 포함) 다른 위치로 옮겨진 파일은 교체하지
+   * 않는다.
+   */
+  private void migrate(String location) throws IOException {
+    Path migratingPath = Paths.get(fileProperties.getTempPath(), MIGRATING_FOLDER,
+        UUID.randomUUID().toString());
+
+    try {
+      encrypt(decrypt(location), migratingPath);
+
+      FileStorage fileStorage = fileStorageRegistry.forLocation(location);
+      // 파일을 삭제한 뒤에 대기열에서 빼므로 대기열을 먼저 확인한다.
+      if (fileDeleteMapper.existsByLocation(location) || !fileStorage.exists(location)) {
+        log.info("파일이 삭제되었거나 옮겨져 암호화 방식을 변환하지 않습니다. location={}", location);
+        return;
+      }
+      fileStorage.put(migratingPath, location);
+    } finally {
+      Files.deleteIfExists(migratingPath);
+    }
+  }
+
+}
@@ -0,0 +1,49 @@
+package com.spring.file.crypto;
+
+import java.util.Arrays;
+import lombok.RequiredArgsConstructor;
+import org.jasypt.encryption.ByteEncryptor;
+
+/**
+ * PBEWithMD5AndTripleDES로 저장된 기존 파일을 읽기 위한 구현체.
+ */
+@RequiredArgsConstructor
+public class PbeFileCipher implements FileCipher {
+
+  /**
+   * jasypt가 암호문 앞에 붙이는 솔트 크기. 3DES의 블록 크기와 같다.
+   */
+  private static final int SALT_LENGTH = 8;
+
+  private static final int BLOCK_SIZE = 8;
+
+  private final ByteEncryptor encryptor;
+
+  @Override
+  public int getVersion() {
+    return EncryptedFileHeader.VERSION_PBE_CHUNKED;
+  }
+
+  @Override
+  public byte[] encrypt(byte[] b, int off, int len, long chunkIndex, boolean lastChunk) {
+    return encryptor.encrypt(range(b, off, len));
+  }
+
+  @Override
+  public byte[] decrypt(byte[] b, int off, int len, long chunkIndex, boolean lastChunk) {
+    return encryptor.decrypt(range(b, off, len));
+  }
+
+  /**
+   * 솔트 + PKCS5 패딩한 암호문. (PBEWithMD5AndTripleDES, IV 없음)
+   */
+  @Override
+  public int getEncryptedLength(int len) {
+    return SALT_LENGTH + (len / BLOCK_SIZE + 1) * BLOCK_SIZE;
+  }
+
+  private byte[] range(byte[] b, int off, int len) {
+    return off == 0 && len == b.length ? b : Arrays.copyOfRange(b, off, off + len);
+  }
+
+}
@@ -0,0 +1,53 @@
+package com.spring.file.crypto;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * 평문 저장 서비스의 파일(version 0)을 기록한다. 헤더, 평문, 트레일러(평문 크기) 순서로 기록한다.
+ */
+public class PlainFileOutputStream extends OutputStream {
+
+  private final DataOutputStream out;
+
+  private long plainLength;
+
+  private boolean closed;
+
+  public PlainFileOutputStream(OutputStream out) throws IOException {
+    this.out = new DataOutputStream(new BufferedOutputStream(out));
+
+    EncryptedFileHeader header = new EncryptedFileHeader(EncryptedFileHeader.VERSION_PLAIN, 0);
+    this.out.write(header.toByteBuffer().array());
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    write(new byte[]{(byte) b}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    if (closed) {
+      throw new IOException("이미 닫힌 스트림입니다.");
+    }
+
+    out.write(b, off, len);
+    plainLength += len;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    try (out) {
+      out.writeLong(plainLength);
+    }
+  }
+
+}
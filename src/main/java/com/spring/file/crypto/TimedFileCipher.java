@@ -0,0 +1,53 @@
+package com.spring.file.crypto;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 청크별 암호화, 복호화 시간을 file.crypto(operation=encrypt|decrypt, version) 타이머에 기록한다.
+ */
+public class TimedFileCipher implements FileCipher {
+
+  private final FileCipher delegate;
+  private final Timer encryptTimer;
+  private final Timer decryptTimer;
+
+  public TimedFileCipher(FileCipher delegate, MeterRegistry meterRegistry) {
+    this.delegate = delegate;
+    this.encryptTimer = timer(meterRegistry, "encrypt", delegate.getVersion());
+    this.decryptTimer = timer(meterRegistry, "decrypt", delegate.getVersion());
+  }
+
+  @Override
+  public int getVersion() {
+    return delegate.getVersion();
+  }
+
+  @Override
+  public byte[] encrypt(byte[] b, int off, int len, long chunkIndex, boolean lastChunk) {
+    return encryptTimer.record(() -> delegate.encrypt(b, off, len, chunkIndex, lastChunk));
+  }
+
+  @Override
+  public byte[] decrypt(byte[] b, int off, int len, long chunkIndex, boolean lastChunk) {
+    return decryptTimer.record(() -> delegate.decrypt(b, off, len, chunkIndex, lastChunk));
+  }
+
+  @Override
+  public boolean isLastChunkAuthenticated() {
+    return delegate.isLastChunkAuthenticated();
+  }
+
+  @Override
+  public int getEncryptedLength(int len) {
+    return delegate.getEncryptedLength(len);
+  }
+
+  private static Timer timer(MeterRegistry meterRegistry, String operation, int version) {
+    return Timer.builder("file.crypto")
+        .tag("operation", operation)
+        .tag("version", String.valueOf(version))
+        .register(meterRegistry);
+  }
+
+}
@@ -0,0 +1,99 @@
+package com.spring.file.image;
+
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.model.FileDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorageRegistry;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 서비스별로 설정한 크기({@link FileProperties#getRenditionSizes(String)})의 이미지를 저장 시점에 미리 생성하여
+ * {@link ImageResizeCache}에 넣어 둔다. 같은 크기의 resize 요청은 디코딩 없이 캐시에서 응답한다.
+ * <p>
+ * 캐시를 미리 채워 두는 용도일 뿐이며 생성을 보장하지 않는다. 크기 하나로 가로, 세로가 같은 정사각형(width=height=size)만
+ * 만들고, 대기열이 가득 차거나 생성에 실패하면 로그만 남기고 다시 시도하지 않는다. 만들지 못한 크기는 resize 요청 때 만든다.
+ */
+@Slf4j
+@Component
+public class ImageRenditionService {
+
+  private final FileProperties fileProperties;
+  private final FileCryptoService fileCryptoService;
+  private final FileStorageRegistry fileStorageRegistry;
+  private final ImageResizer imageResizer;
+  private final ImageResizeCache imageResizeCache;
+  private final TaskExecutor imageRenditionExecutor;
+
+  public ImageRenditionService(FileProperties fileProperties, FileCryptoService fileCryptoService,
+      FileStorageRegistry fileStorageRegistry, ImageResizer imageResizer,
+      ImageResizeCache imageResizeCache,
+      @Qualifier("imageRenditionExecutor") TaskExecutor imageRenditionExecutor) {
+    this.fileProperties = fileProperties;
+    this.fileCryptoService = fileCryptoService;
+    this.fileStorageRegistry = fileStorageRegistry;
+    this.imageResizer = imageResizer;
+    this.imageResizeCache = imageResizeCache;
+    this.imageRenditionExecutor = imageRenditionExecutor;
+  }
+
+  /**
+   * 트랜잭션 안에서 호출하면 커밋 후에 생성을 시작한다.
+   */
+  public void generate(List<FileDto> fileDtoList) {
+    List<FileDto> imageFileList = fileDtoList.stream()
+        .filter(fileDto -> !fileProperties.getRenditionSizes(fileDto.getServiceCode()).isEmpty())
+        .filter(fileDto -> imageResizer.supports(fileDto.getFileExtension()))
+        .toList();
+    if (imageFileList.isEmpty()) {
+      return;
+    }
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          submit(imageFileList);
+        }
+      });
+    } else {
+      submit(imageFileList);
+    }
+  }
+
+  private void submit(List<FileDto> fileDtoList) {
+    for (FileDto fileDto : fileDtoList) {
+      try {
+        imageRenditionExecutor.execute(() -> render(fileDto));
+      } catch (TaskRejectedException e) {
+        log.warn("이미지 미리 생성 대기열이 가득 차 생성하지 않습니다. fileId={}", fileDto.getFileId());
+      }
+    }
+  }
+
+  private void render(FileDto fileDto) {
+    List<Integer> sizes = fileProperties.getRenditionSizes(fileDto.getServiceCode()).stream()
+        .distinct()
+        .filter(size -> !imageResizeCache.exists(fileDto.getFileId(), size, size))
+        .toList();
+    if (sizes.isEmpty()) {
+      return;
+    }
+
+    try (InputStream in = fileCryptoService.decrypt(fileStorageRegistry.getLocation(fileDto))) {
+      Map<Integer, byte[]> images = imageResizer.resize(in, fileDto.getFileExtension(), sizes);
+      images.forEach((size, image) -> imageResizeCache.store(fileDto, size, size, image));
+    } catch (Exception e) {
+      log.warn("이미지를 미리 생성할 수 없습니다. fileId={}", fileDto.getFileId(), e);
+    }
+  }
+
+}
@@ -0,0 +1,254 @@
+package com.spring.file.image;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.model.FileDto;
+import com.spring.file.properties.FileProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+/**
+ * resize 결과 캐시. 메모리(W-TinyLFU, 바이트 크기 제한) → 디스크(basePath/resizeCacheFolder/fileId) 순서로 조회한다.
+ * <p>
+ * 메모리 캐시는 fileId 단위로 묶어 저장하므로 원본 파일 삭제 시 fileId 하나로 모든 크기를 제거할 수 있다.
+ * <p>
+ * 캐시에 없으면 imageResizeExecutor에서 resize하며, 같은 fileId, 크기의 동시 요청은 하나의 작업 결과를 함께 기다린다.
+ * imageResizeExecutor의 대기열이 가득 차면 {@link ImageResizeRejectedException}이 발생한다.
+ * <p>
+ * 조회를 시작한 뒤에 같은 fileId가 {@link #evict(String)}되었으면 결과를 캐시에 넣지 않는다(세대 비교). 캐시는 파일당
+ * resizeCacheMaxSizesPerFile개 크기까지만 두어 원본 파일 수에 비례하도록 한다. 넘는 크기는 매번 만들어 응답한다.
+ */
+@Slf4j
+@Component
+public class ImageResizeCache {
+
+  private static final Duration EVICTED_GENERATION_TTL = Duration.ofHours(1);
+
+  private final FileProperties fileProperties;
+  private final FileCryptoService fileCryptoService;
+  private final TaskExecutor imageResizeExecutor;
+  private final Cache<String, Map<String, byte[]>> memoryCache;
+  private final Map<String, CompletableFuture<byte[]>> loadingImages = new ConcurrentHashMap<>();
+  private final AtomicLong generation = new AtomicLong();
+  /**
+   * fileId별 마지막으로 evict한 세대. 진행 중인 resize보다 오래 남아 있으면 된다.
+   */
+  private final Cache<String, Long> evictedGenerations = Caffeine.newBuilder()
+      .expireAfterWrite(EVICTED_GENERATION_TTL)
+      .build();
+  private final Counter memoryHitCounter;
+  private final Counter diskHitCounter;
+  private final Counter missCounter;
+
+  public ImageResizeCache(FileProperties fileProperties, FileCryptoService fileCryptoService,
+      @Qualifier("imageResizeExecutor") TaskExecutor imageResizeExecutor,
+      MeterRegistry meterRegistry) {
+    this.fileProperties = fileProperties;
+    this.fileCryptoService = fileCryptoService;
+    this.imageResizeExecutor = imageResizeExecutor;
+    this.memoryCache = Caffeine.newBuilder()
+        .maximumWeight(fileProperties.getResizeCacheMaxBytes())
+        .weigher((String fileId, Map<String, byte[]> images) -> images.values().stream()
+            .mapToInt(image -> image.length)
+            .sum())
+        .build();
+    this.memoryHitCounter = counter(meterRegistry, "memory", "hit");
+    this.diskHitCounter = counter(meterRegistry, "disk", "hit");
+    this.missCounter = counter(meterRegistry, "none", "miss");
+  }
+
+  public byte[] get(FileDto fileDto, int width, int height, Callable<byte[]> loader)
+      throws Exception {
+    String fileId = fileDto.getFileId();
+    String size = getSize(width, height);
+    long startGeneration = generation.get();
+
+    Map<String, byte[]> images = memoryCache.getIfPresent(fileId);
+    if (images != null && images.containsKey(size)) {
+      memoryHitCounter.increment();
+      return images.get(size);
+    }
+
+    Path path = getCachePath(fileId, size);
+    if (Files.exists(path)) {
+      try (InputStream in = fileCryptoService.decrypt(path)) {
+        byte[] image = in.readAllBytes();
+        diskHitCounter.increment();
+        putMemory(fileId, size, image, startGeneration);
+        return image;
+      } catch (IOException e) {
+        log.warn("resize 디스크 캐시를 읽을 수 없습니다. path={}", path, e);
+      }
+    }
+
+    missCounter.increment();
+    return load(fileDto, size, path, loader, startGeneration);
+  }
+
+  public boolean exists(String fileId, int width, int height) {
+    return Files.exists(getCachePath(fileId, getSize(width, height)));
+  }
+
+  /**
+   * 미리 생성한 이미지를 디스크 캐시에 저장한다. 요청 시 메모리 캐시로 올라간다.
+   */
+  public void store(FileDto fileDto, int width, int height, byte[] image) {
+    putDisk(fileDto, getCachePath(fileDto.getFileId(), getSize(width, height)), image,
+        generation.get());
+  }
+
+  /**
+   * 세대를 올려 진행 중인 조회가 이전 결과를 다시 넣지 않도록 한 뒤 제거한다. 메모리 캐시와 같은 잠금에서 기록한다.
+   */
+  public void evict(String fileId) throws IOException {
+    memoryCache.asMap().compute(fileId, (key, images) -> {
+      evictedGenerations.put(fileId, generation.incrementAndGet());
+      return null;
+    });
+    FileUtils.deleteDirectory(getCacheDirectory(fileId).toFile());
+  }
+
+  private byte[] load(FileDto fileDto, String size, Path path, Callable<byte[]> loader,
+      long startGeneration) throws Exception {
+    String key = fileDto.getFileId() + "/" + size;
+    CompletableFuture<byte[]> newLoading = new CompletableFuture<>();
+    CompletableFuture<byte[]> loading = loadingImages.putIfAbsent(key, newLoading);
+
+    if (loading == null) {
+      loading = newLoading;
+      try {
+        imageResizeExecutor.execute(() -> {
+          try {
+            byte[] image = loader.call();
+            putDisk(fileDto, path, image, startGeneration);
+            putMemory(fileDto.getFileId(), size, image, startGeneration);
+            newLoading.complete(image);
+          } catch (Throwable e) {
+            newLoading.completeExceptionally(e);
+          } finally {
+            loadingImages.remove(key, newLoading);
+          }
+        });
+      } catch (TaskRejectedException e) {
+        loadingImages.remove(key, newLoading);
+        newLoading.completeExceptionally(new ImageResizeRejectedException(
+            "resize 대기열이 가득 찼습니다. fileId=" + fileDto.getFileId(), e));
+      }
+    }
+
+    try {
+      return loading.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception cause) {
+        throw cause;
+      }
+      throw e;
+    }
+  }
+
+  private void putMemory(String fileId, String size, byte[] image, long startGeneration) {
+    memoryCache.asMap().compute(fileId, (key, images) -> {
+      if (isEvicted(fileId, startGeneration)) {
+        return images;
+      }
+      if (images != null && !images.containsKey(size)
+          && images.size() >= fileProperties.getResizeCacheMaxSizesPerFile()) {
+        return images;
+      }
+      Map<String, byte[]> newImages = images == null ? new HashMap<>() : new HashMap<>(images);
+      newImages.put(size, image);
+      return Map.copyOf(newImages);
+    });
+  }
+
+  /**
+   * 옮긴 뒤에 evict 여부를 확인하므로, 그 사이 evict된 경우 evict가 지우거나 여기서 지운다.
+   */
+  private void putDisk(FileDto fileDto, Path path, byte[] image, long startGeneration) {
+    Path writingPath = path.resolveSibling(path.getFileName() + "." + UUID.randomUUID());
+
+    try {
+      if (!Files.exists(path) && countCachedSizes(path.getParent())
+          >= fileProperties.getResizeCacheMaxSizesPerFile()) {
+        return;
+      }
+      if (fileProperties.isPlainService(fileDto.getServiceCode())) {
+        fileCryptoService.writePlain(new ByteArrayInputStream(image), writingPath);
+      } else {
+        fileCryptoService.encrypt(new ByteArrayInputStream(image), writingPath);
+      }
+      Files.move(writingPath, path, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      if (isEvicted(fileDto.getFileId(), startGeneration)) {
+        FileUtils.deleteDirectory(getCacheDirectory(fileDto.getFileId()).toFile());
+      }
+    } catch (IOException e) {
+      log.warn("resize 디스크 캐시를 저장할 수 없습니다. path={}", path, e);
+      FileUtils.deleteQuietly(writingPath.toFile());
+    }
+  }
+
+  /**
+   * 디스크에 캐시된 크기 수. 기록 중인 파일({size}.{uuid})은 세지 않는다.
+   */
+  private long countCachedSizes(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return 0;
+    }
+
+    try (Stream<Path> paths = Files.list(directory)) {
+      return paths
+          .filter(cachedPath -> !cachedPath.getFileName().toString().contains("."))
+          .count();
+    }
+  }
+
+  private boolean isEvicted(String fileId, long startGeneration) {
+    Long evictedGeneration = evictedGenerations.getIfPresent(fileId);
+    return evictedGeneration != null && evictedGeneration > startGeneration;
+  }
+
+  private Path getCacheDirectory(String fileId) {
+    return Paths.get(fileProperties.getResizeCachePath(), fileId);
+  }
+
+  private Path getCachePath(String fileId, String size) {
+    return getCacheDirectory(fileId).resolve(size);
+  }
+
+  private String getSize(int width, int height) {
+    return width + "x" + height;
+  }
+
+  private static Counter counter(MeterRegistry meterRegistry, String tier, String result) {
+    return Counter.builder("file.resize.cache")
+        .tag("tier", tier)
+        .tag("result", result)
+        .register(meterRegistry);
+  }
+
+}
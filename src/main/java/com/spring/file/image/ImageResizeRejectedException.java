@@ -0,0 +1,12 @@
+package com.spring.file.image;
+
+/**
+ * imageResizeExecutor의 대기열이 가득 차서 resize를 시작할 수 없는 경우. 503(Retry-After)으로 응답한다.
+ */
+public class ImageResizeRejectedException extends RuntimeException {
+
+  public ImageResizeRejectedException(String message, Throwable cause) {
+    super(message, cause);
+  }
+
+}
@@ -0,0 +1,133 @@
+package com.spring.file.image;
+
+import com.spring.file.properties.FileProperties;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import lombok.RequiredArgsConstructor;
+import org.imgscalr.Scalr;
+import org.imgscalr.Scalr.Method;
+import org.imgscalr.Scalr.Mode;
+import org.springframework.stereotype.Component;
+
+/**
+ * 원본 이미지를 목표 크기에 맞춰 subsampling하여 디코딩한 뒤 resize한다. 디코딩하는 픽셀 수는
+ * {@link FileProperties#getResizeMaxDecodePixels()}를 넘지 않는다.
+ */
+@RequiredArgsConstructor
+@Component
+public class ImageResizer {
+
+  /**
+   * resize 품질을 위해 목표 크기의 2배 이상으로 디코딩한다.
+   */
+  private static final int QUALITY_FACTOR = 2;
+
+  private final FileProperties fileProperties;
+
+  public byte[] resize(InputStream in, String formatName, int resizeWidth, int resizeHeight)
+      throws IOException {
+    BufferedImage originalImage = read(in, resizeWidth, resizeHeight);
+
+    return write(resize(originalImage, resizeWidth, resizeHeight), formatName);
+  }
+
+  /**
+   * 원본을 한 번만 디코딩하여 여러 크기(size x size)로 resize한다.
+   */
+  public Map<Integer, byte[]> resize(InputStream in, String formatName, Collection<Integer> sizes)
+      throws IOException {
+    int maxSize = Collections.max(sizes);
+    BufferedImage originalImage = read(in, maxSize, maxSize);
+
+    Map<Integer, byte[]> resizedImages = new LinkedHashMap<>();
+    for (int size : sizes) {
+      resizedImages.put(size, write(resize(originalImage, size, size), formatName));
+    }
+
+    return resizedImages;
+  }
+
+  public boolean supports(String formatName) {
+    return ImageIO.getImageReadersBySuffix(formatName).hasNext()
+        && ImageIO.getImageWritersBySuffix(formatName).hasNext();
+  }
+
+  private BufferedImage resize(BufferedImage originalImage, int resizeWidth, int resizeHeight) {
+    Method scalingMethod = Method.AUTOMATIC;
+    // {@link Mode.AUTOMATIC} : width, height를 참고하여 가장 적합한 크기로 이미지를 resize한다.
+    // {@link Mode.FIT_EXACT} : width, height를 기준으로 이미지를 resize한다.
+    // {@link Mode.FIT_TO_WIDTH} : width를 기준으로 이미지를 resize한다.
+    // {@link Mode.FIT_TO_HEIGHT} : height를 기준으로 이미지를 resize한다.
+    Mode resizeMode = Mode.AUTOMATIC;
+
+    return Scalr.resize(originalImage, scalingMethod, resizeMode, resizeWidth, resizeHeight);
+  }
+
+  private byte[] write(BufferedImage image, String formatName) throws IOException {
+    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    ImageIO.write(image, formatName, baos);
+
+    return baos.toByteArray();
+  }
+
+  private BufferedImage read(InputStream in, int resizeWidth, int resizeHeight)
+      throws IOException {
+    try (ImageInputStream imageInputStream = new MemoryCacheImageInputStream(in)) {
+      Iterator<ImageReader> readers = ImageIO.getImageReaders(imageInputStream);
+      if (!readers.hasNext()) {
+        throw new IOException("이미지를 읽을 수 없습니다.");
+      }
+
+      ImageReader reader = readers.next();
+      try {
+        reader.setInput(imageInputStream, true, true);
+        int subsampling = getSubsampling(reader.getWidth(0), reader.getHeight(0), resizeWidth,
+            resizeHeight);
+
+        ImageReadParam param = reader.getDefaultReadParam();
+        if (subsampling > 1) {
+          param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+        }
+
+        return reader.read(0, param);
+      } finally {
+        reader.dispose();
+      }
+    }
+  }
+
+  private int getSubsampling(int width, int height, int resizeWidth, int resizeHeight) {
+    int subsampling = Integer.MAX_VALUE;
+    if (resizeWidth > 0) {
+      subsampling = Math.min(subsampling, width / (resizeWidth * QUALITY_FACTOR));
+    }
+    if (resizeHeight > 0) {
+      subsampling = Math.min(subsampling, height / (resizeHeight * QUALITY_FACTOR));
+    }
+    subsampling = Math.max(1, subsampling == Integer.MAX_VALUE ? 1 : subsampling);
+
+    long maxDecodePixels = fileProperties.getResizeMaxDecodePixels();
+    while ((long) ceilDiv(width, subsampling) * ceilDiv(height, subsampling) > maxDecodePixels) {
+      subsampling++;
+    }
+
+    return subsampling;
+  }
+
+  private static int ceilDiv(int x, int y) {
+    return (x + y - 1) / y;
+  }
+
+}
@@ -0,0 +1,23 @@
+package com.spring.file.mapper;
+
+import com.spring.file.model.FileBlobDto;
+import java.util.List;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface FileBlobMapper {
+
+  /**
+   * 없으면 등록하고, 있으면 참조수를 referenceCount만큼 증가시킨다.
+   */
+  int insertOrIncrease(List<FileBlobDto> list);
+
+  int decrease(List<FileBlobDto> list);
+
+  List<FileBlobDto> findByBlobHashes(List<String> blobHashes);
+
+  List<FileBlobDto> findByBlobHashesForUpdate(List<String> blobHashes);
+
+  int deleteUnreferenced(List<String> blobHashes);
+
+}
@@ -0,0 +1,21 @@
+package com.spring.file.mapper;
+
+import com.spring.file.model.FileCacheEvictDto;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface FileCacheEvictMapper {
+
+  int insertBulk(List<String> fileIds);
+
+  Long findMaxEvictSeq();
+
+  List<FileCacheEvictDto> findAfter(long evictSeq);
+
+  List<FileCacheEvictDto> findByEvictSeqs(List<Long> evictSeqs);
+
+  int deleteBefore(LocalDateTime registeredDateTime);
+
+}
@@ -0,0 +1,22 @@
+package com.spring.file.mapper;
+
+import com.spring.file.model.FileDeleteDto;
+import java.util.List;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface FileDeleteMapper {
+
+  int insertBulk(List<FileDeleteDto> list);
+
+  List<FileDeleteDto> findAfter(@Param("deleteSeq") long deleteSeq, @Param("limit") int limit);
+
+  int deleteByDeleteSeqs(List<Long> deleteSeqs);
+
+  /**
+   * 삭제 대기 중인 위치인지 확인한다.
+   */
+  boolean existsByLocation(@Param("location") String location);
+
+}
@@ -3,6 +3,8 @@ package com.spring.file.mapper;
 import com.spring.file.model.FileDto;
 import java.util.List;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.cursor.Cursor;
 
 @Mapper
 public interface FileMapper {
@@ -17,6 +19,25 @@ public interface FileMapper {
 
   List<FileDto> findByService(FileDto dto);
 
+  /**
+   * IX_FILE_01(SVC_CD, TBL_NM, DSTN_CLMN_VAL) + FILE_ID 순서로 last 다음부터 limit건(keyset). last가 null이면 처음부터
+   */
+  List<FileDto> findByServiceAfter(@Param("params") FileDto params, @Param("last") FileDto last,
+      @Param("limit") int limit);
+
+  /**
+   * findByService를 한 건씩 읽는다. 트랜잭션 안에서 사용하고 닫아야 한다.
+   */
+  Cursor<FileDto> streamByService(FileDto dto);
+
   int deleteByService(FileDto dto);
 
+  /**
+   * FILE_ID 순서로 lastFileId 다음부터 limit건(keyset). lastFileId가 null이면 처음부터
+   */
+  List<FileDto> findByFileIdAfter(@Param("lastFileId") String lastFileId,
+      @Param("limit") int limit);
+
+  int updateFilePaths(List<FileDto> list);
+
 }
@@ -0,0 +1,21 @@
+package com.spring.file.mapper;
+
+import com.spring.file.model.FileMoveDto;
+import java.time.LocalDateTime;
+import java.util.List;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+@Mapper
+public interface FileMoveMapper {
+
+  int insertBulk(List<FileMoveDto> list);
+
+  List<FileMoveDto> findBefore(@Param("lastFileId") String lastFileId,
+      @Param("registeredBefore") LocalDateTime registeredBefore, @Param("limit") int limit);
+
+  List<String> findFileIdsByServiceCode(String serviceCode);
+
+  int deleteByFileIds(List<String> fileIds);
+
+}
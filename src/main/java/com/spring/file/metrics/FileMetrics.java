@@ -0,0 +1,356 @@
+package com.spring.file.metrics;
+
+import com.spring.file.properties.FileProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.MultiGauge;
+import io.micrometer.core.instrument.MultiGauge.Row;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 파일 작업 지표. 작업 지표는 모두 serviceCode, operation 태그를 가진다. serviceCode 태그는 metricsServiceCodes에 등록한
+ * 서비스만 그대로 기록하고 나머지는 other로 묶는다.
+ * <ul>
+ * <li>file.operation (timer): 작업 전체 시간. exception 태그는 실패한 경우 예외 클래스 이름, 성공하면 none
+ * <li>file.operation.stage (timer): 작업 안의 단계별 시간(stage=encrypt, resize, db, move)
+ * <li>file.operation.bytes (summary): 작업별 입출력 바이트(direction=in, out)
+ * <li>file.temp.size, file.temp.files (gauge): 서비스별 임시 폴더 크기, 파일 수
+ * <li>file.temp.reaped.files, file.temp.reaped.bytes, file.temp.reaped.buckets (counter): 서비스별 임시 파일
+ * 정리 진행 상황(삭제한 파일 수, 회수한 바이트, 만료시킨 시간 단위 폴더 수)
+ * <li>file.reconcile.mismatches (counter): TB_FILE과 저장 폴더를 비교하여 찾은 불일치 수(type=orphan, missing,
+ * misplaced, repaired=true, false)
+ * </ul>
+ * 복호화, 암호화 자체의 시간은 {@link com.spring.file.crypto.TimedFileCipher}(file.crypto)에서 기록한다.
+ */
+@Slf4j
+@Component
+public class FileMetrics {
+
+  public static final String UPLOAD = "upload";
+  public static final String SAVE = "save";
+  public static final String DOWNLOAD = "download";
+  public static final String RESIZE = "resize";
+  public static final String COPY = "copy";
+  public static final String TEMP_CLEANUP = "temp-cleanup";
+
+  public static final String STAGE_ENCRYPT = "encrypt";
+  public static final String STAGE_RESIZE = "resize";
+  public static final String STAGE_DB = "db";
+  public static final String STAGE_MOVE = "move";
+
+  public static final String IN = "in";
+  public static final String OUT = "out";
+
+  private static final String NONE = "none";
+  private static final String OTHER = "other";
+  private static final String HIDDEN_FOLDER_PREFIX = ".";
+
+  private final FileProperties fileProperties;
+  private final MeterRegistry meterRegistry;
+  private final MultiGauge tempSizeGauge;
+  private final MultiGauge tempFilesGauge;
+  /**
+   * 시간 단위 임시 폴더별로 계산해 둔 크기, 파일 수 ({@link #refreshTempMetrics()}에서만 사용)
+   */
+  private final Map<Path, BucketUsage> bucketUsages = new HashMap<>();
+
+  public FileMetrics(FileProperties fileProperties, MeterRegistry meterRegistry) {
+    this.fileProperties = fileProperties;
+    this.meterRegistry = meterRegistry;
+    this.tempSizeGauge = MultiGauge.builder("file.temp.size")
+        .baseUnit(BaseUnits.BYTES)
+        .register(meterRegistry);
+    this.tempFilesGauge = MultiGauge.builder("file.temp.files")
+        .baseUnit(BaseUnits.FILES)
+        .register(meterRegistry);
+  }
+
+  public <T, E extends Exception> T record(String operation, String serviceCode,
+      ThrowingSupplier<T, E> supplier) throws E {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    String exception = NONE;
+    try {
+      return supplier.get();
+    } catch (Exception e) {
+      exception = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      sample.stop(Timer.builder("file.operation")
+          .tags(tags(operation, serviceCode))
+          .tag("exception", exception)
+          .register(meterRegistry));
+    }
+  }
+
+  public <E extends Exception> void record(String operation, String serviceCode,
+      ThrowingRunnable<E> runnable) throws E {
+    record(operation, serviceCode, () -> {
+      runnable.run();
+      return null;
+    });
+  }
+
+  public <T, E extends Exception> T recordStage(String operation, String serviceCode,
+      String stage, ThrowingSupplier<T, E> supplier) throws E {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    try {
+      return supplier.get();
+    } finally {
+      sample.stop(Timer.builder("file.operation.stage")
+          .tags(tags(operation, serviceCode))
+          .tag("stage", stage)
+          .register(meterRegistry));
+    }
+  }
+
+  public <E extends Exception> void recordStage(String operation, String serviceCode,
+      String stage, ThrowingRunnable<E> runnable) throws E {
+    recordStage(operation, serviceCode, stage, () -> {
+      runnable.run();
+      return null;
+    });
+  }
+
+  public void recordBytes(String operation, String serviceCode, String direction, long bytes) {
+    DistributionSummary.builder("file.operation.bytes")
+        .baseUnit(BaseUnits.BYTES)
+        .tags(tags(operation, serviceCode))
+        .tag("direction", direction)
+        .register(meterRegistry)
+        .record(bytes);
+  }
+
+  public void recordTempReaped(String serviceCode, long bytes) {
+    Counter.builder("file.temp.reaped.files")
+        .baseUnit(BaseUnits.FILES)
+        .tag("serviceCode", serviceCodeTag(serviceCode))
+        .register(meterRegistry)
+        .increment();
+    Counter.builder("file.temp.reaped.bytes")
+        .baseUnit(BaseUnits.BYTES)
+        .tag("serviceCode", serviceCodeTag(serviceCode))
+        .register(meterRegistry)
+        .increment(bytes);
+  }
+
+  public void recordTempBucketExpired(String serviceCode) {
+    Counter.builder("file.temp.reaped.buckets")
+        .tag("serviceCode", serviceCodeTag(serviceCode))
+        .register(meterRegistry)
+        .increment();
+  }
+
+  public void recordReconcileMismatch(String type, boolean repaired) {
+    Counter.builder("file.reconcile.mismatches")
+        .tag("type", type)
+        .tag("repaired", String.valueOf(repaired))
+        .register(meterRegistry)
+        .increment();
+  }
+
+  /**
+   * 임시 폴더는 크기가 클 수 있으므로 scrape할 때가 아니라 주기적으로 계산해 둔다. 시간 단위 폴더
+   * ({@link FileProperties#getTempFile(String, String)})에는 그 시간에 발급한 fileId만 기록되므로, 업로드 중일 수 있는 최근
+   * 두 시간의 폴더만 매번 다시 계산하고 지난 폴더는 계산해 둔 값을 쓰면서 서비스마다 한 폴더씩 돌아가며 다시 계산한다(저장,
+   * 정리로 줄어든 만큼 반영). 시간 단위 폴더 밖의 예전 임시 파일은 서비스 폴더를 읽을 때 함께 더한다.
+   */
+  @Scheduled(fixedDelayString = "${file.temp-metrics-interval:60000}")
+  public void refreshTempMetrics() {
+    Path tempPath = Paths.get(fileProperties.getTempPath());
+    if (!Files.isDirectory(tempPath)) {
+      return;
+    }
+
+    Instant openTime = Instant.now().minus(FileProperties.TEMP_BUCKET_DURATION.multipliedBy(2));
+    Map<String, long[]> usages = new TreeMap<>();
+    Set<Path> buckets = new HashSet<>();
+    // .trash 등 점으로 시작하는 폴더는 서비스 폴더가 아니다.
+    try (DirectoryStream<Path> serviceDirectories = Files.newDirectoryStream(tempPath,
+        path -> Files.isDirectory(path)
+            && !path.getFileName().toString().startsWith(HIDDEN_FOLDER_PREFIX))) {
+      for (Path serviceDirectory : serviceDirectories) {
+        long[] usage = usages.computeIfAbsent(
+            serviceCodeTag(serviceDirectory.getFileName().toString()), key -> new long[2]);
+        addUsage(usage, getServiceUsage(serviceDirectory, openTime, buckets));
+      }
+    } catch (IOException e) {
+      log.warn("임시 폴더 크기를 계산할 수 없습니다.", e);
+      return;
+    }
+    bucketUsages.keySet().retainAll(buckets);
+
+    List<Row<?>> sizeRows = new ArrayList<>();
+    List<Row<?>> filesRows = new ArrayList<>();
+    usages.forEach((serviceCode, usage) -> {
+      Tags tags = Tags.of("serviceCode", serviceCode);
+      sizeRows.add(Row.of(tags, usage[0]));
+      filesRows.add(Row.of(tags, usage[1]));
+    });
+    tempSizeGauge.register(sizeRows, true);
+    tempFilesGauge.register(filesRows, true);
+  }
+
+  /**
+   * @param buckets 지금 있는 시간 단위 폴더를 더한다.
+   * @return {크기, 파일 수}
+   */
+  private long[] getServiceUsage(Path serviceDirectory, Instant openTime, Set<Path> buckets)
+      throws IOException {
+    long[] usage = new long[2];
+    Path staleBucket = null;
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(serviceDirectory)) {
+      for (Path entry : entries) {
+        BasicFileAttributes attributes = readAttributes(entry);
+        if (attributes == null) {
+          continue;
+        }
+
+        Optional<Instant> bucketTime = getBucketTime(entry, attributes);
+        if (bucketTime.isEmpty()) {
+          addUsage(usage, attributes.isDirectory()
+              ? getUsage(entry)
+              : new long[]{attributes.size(), attributes.isRegularFile() ? 1 : 0});
+          continue;
+        }
+
+        buckets.add(entry);
+        BucketUsage bucketUsage = bucketUsages.get(entry);
+        if (bucketUsage == null || bucketTime.get().isAfter(openTime)) {
+          bucketUsage = sampleBucket(entry);
+        } else if (staleBucket == null
+            || bucketUsage.sampledTime().isBefore(bucketUsages.get(staleBucket).sampledTime())) {
+          staleBucket = entry;
+        }
+        addUsage(usage, bucketUsage.usage());
+      }
+    }
+
+    // 가장 오래전에 계산한 지난 폴더 하나만 다시 계산한다. 다음 갱신부터 반영된다.
+    if (staleBucket != null) {
+      sampleBucket(staleBucket);
+    }
+    return usage;
+  }
+
+  private BucketUsage sampleBucket(Path bucket) throws IOException {
+    BucketUsage bucketUsage = new BucketUsage(getUsage(bucket), Instant.now());
+    bucketUsages.put(bucket, bucketUsage);
+    return bucketUsage;
+  }
+
+  private Optional<Instant> getBucketTime(Path entry, BasicFileAttributes attributes) {
+    if (!attributes.isDirectory()) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(FileProperties.TEMP_BUCKET_FORMATTER.parse(
+          entry.getFileName().toString(), Instant::from));
+    } catch (DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * 계산 중에 업로드 완료, 저장, 정리로 없어진 파일은 null
+   */
+  private BasicFileAttributes readAttributes(Path path) throws IOException {
+    try {
+      return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+  private void addUsage(long[] usage, long[] added) {
+    usage[0] += added[0];
+    usage[1] += added[1];
+  }
+
+  /**
+   * @return {크기, 파일 수}
+   */
+  private long[] getUsage(Path directory) throws IOException {
+    long[] usage = new long[2];
+    Files.walkFileTree(directory, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        usage[0] += attrs.size();
+        usage[1]++;
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+        // 업로드 완료, 저장, 정리로 계산 중에 파일이 없어질 수 있다.
+        if (e instanceof NoSuchFileException) {
+          return FileVisitResult.CONTINUE;
+        }
+        throw e;
+      }
+    });
+    return usage;
+  }
+
+  /**
+   * 등록한 서비스 코드(metricsServiceCodes)가 아니면 other
+   */
+  private String serviceCodeTag(String serviceCode) {
+    if (serviceCode == null) {
+      return NONE;
+    }
+    return fileProperties.getMetricsServiceCodes().contains(serviceCode) ? serviceCode : OTHER;
+  }
+
+  private Tags tags(String operation, String serviceCode) {
+    return Tags.of("operation", operation, "serviceCode", serviceCodeTag(serviceCode));
+  }
+
+  /**
+   * @param usage {크기, 파일 수}
+   */
+  private record BucketUsage(long[] usage, Instant sampledTime) {
+
+  }
+
+  @FunctionalInterface
+  public interface ThrowingSupplier<T, E extends Exception> {
+
+    T get() throws E;
+
+  }
+
+  @FunctionalInterface
+  public interface ThrowingRunnable<E extends Exception> {
+
+    void run() throws E;
+
+  }
+
+}
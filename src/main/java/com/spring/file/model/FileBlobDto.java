@@ -0,0 +1,20 @@
+package com.spring.file.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class FileBlobDto {
+
+  String blobHash;
+
+  String filePath;
+
+  long fileSize;
+
+  int referenceCount;
+
+}
@@ -0,0 +1,16 @@
+package com.spring.file.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class FileCacheEvictDto {
+
+  long evictSeq;
+
+  String fileId;
+
+}
@@ -19,6 +19,6 @@ import org.hibernate.validator.constraints.UUID;
 public class FileDeleteByFileIdsRequestDto {
 
   @NotEmpty
-  List<@NotNull @UUID String> fileIds;
+  List<@NotNull @UUID(version = {1, 2, 3, 4, 5, 7}) String> fileIds;
 
 }
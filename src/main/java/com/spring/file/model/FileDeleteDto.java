@@ -0,0 +1,18 @@
+package com.spring.file.model;
+
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+
+@Getter
+@Setter
+@Builder
+public class FileDeleteDto {
+
+  long deleteSeq;
+
+  String fileId;
+
+  String location;
+
+}
@@ -3,6 +3,7 @@ package com.spring.file.model;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import java.time.LocalDateTime;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -13,7 +14,7 @@ import org.hibernate.validator.constraints.UUID;
 @Builder
 public class FileDto {
 
-  @UUID
+  @UUID(version = {1, 2, 3, 4, 5, 7})
   @Size(max = 50)
   @NotBlank
   String fileId;
@@ -45,6 +46,11 @@ public class FileDto {
   @NotBlank
   String distinguishColumnValue;
 
+  LocalDateTime registeredDateTime;
+
+  @Size(max = 64)
+  String blobHash;
+
   public String getFileNameExtension() {
     return String.join(".", fileName, fileExtension);
   }
@@ -0,0 +1,44 @@
+package com.spring.file.model;
+
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@ToString
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class FileFindByServicePageRequestDto {
+
+  @Size(max = 10)
+  @NotBlank
+  String serviceCode;
+
+  @Size(max = 100)
+  String tableName;
+
+  @Size(max = 1000)
+  String distinguishColumnValue;
+
+  /**
+   * 이전 페이지 응답의 nextCursor. 없으면 첫 페이지
+   */
+  @Size(max = 2000)
+  String cursor;
+
+  /**
+   * 페이지 크기. 없으면 100
+   */
+  @Min(1)
+  @Max(1000)
+  Integer size;
+
+}
@@ -0,0 +1,18 @@
+package com.spring.file.model;
+
+import java.util.List;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class FileFindByServicePageResponseDto {
+
+  private List<FileDto> files;
+
+  /**
+   * 다음 페이지 요청에 사용한다. 마지막 페이지이면 null
+   */
+  private String nextCursor;
+
+}
@@ -17,7 +17,7 @@ import org.hibernate.validator.constraints.UUID;
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class FileSaveDto {
 
-  @UUID
+  @UUID(version = {1, 2, 3, 4, 5, 7})
   @NotBlank
   String fileId;
 
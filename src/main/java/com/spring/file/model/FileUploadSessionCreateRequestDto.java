@@ -0,0 +1,37 @@
+package com.spring.file.model;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@ToString
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class FileUploadSessionCreateRequestDto {
+
+  @Size(max = 10)
+  @NotBlank
+  String serviceCode;
+
+  /**
+   * 확장자를 포함한 원본 파일명
+   */
+  @Size(max = 356)
+  @NotBlank
+  String originalFilename;
+
+  /**
+   * 빈 파일(0)도 올릴 수 있다. 최대 크기는 file.upload-max-file-size
+   */
+  @Min(0)
+  long fileSize;
+
+}
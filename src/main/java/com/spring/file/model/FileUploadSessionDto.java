@@ -0,0 +1,37 @@
+package com.spring.file.model;
+
+import java.util.List;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@ToString
+@Getter
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class FileUploadSessionDto {
+
+  String fileId;
+
+  String serviceCode;
+
+  String fileName;
+
+  String fileExtension;
+
+  long fileSize;
+
+  int chunkSize;
+
+  int chunkCount;
+
+  /**
+   * 받은 청크 번호. 받지 않은 청크만 다시 올리면 된다.
+   */
+  List<Integer> receivedChunks;
+
+}
@@ -1,11 +1,24 @@
 package com.spring.file.properties;
 
+import com.spring.file.crypto.AeadFileCipher.Algorithm;
 import com.spring.file.util.DefaultUtils;
+import com.spring.file.util.FileIdUtils;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import java.io.File;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import lombok.Getter;
 import lombok.ToString;
 import org.springframework.boot.context.properties.ConfigurationProperties;
@@ -17,6 +30,15 @@ import org.springframework.validation.annotation.Validated;
 @ConfigurationProperties("file")
 public class FileProperties {
 
+  /**
+   * 임시 파일의 시간 단위 폴더 이름(UTC)
+   */
+  public static final DateTimeFormatter TEMP_BUCKET_FORMATTER = DateTimeFormatter
+      .ofPattern("yyyyMMddHH")
+      .withZone(ZoneOffset.UTC);
+
+  public static final Duration TEMP_BUCKET_DURATION = Duration.ofHours(1);
+
   @Size(min = 1)
   @NotBlank
   private final String basePath;
@@ -36,22 +58,384 @@ public class FileProperties {
   @NotBlank
   private final String encryptorPassword;
 
+  @Size(min = 1)
+  @NotBlank
+  private final String encryptorSalt;
+
+  @NotNull
+  private final Algorithm encryptorAlgorithm;
+
+  @NotNull
+  private final Boolean lazyMigration;
+
+  @Min(1024)
+  private final Integer encryptChunkSize;
+
+  private final Set<String> plainServiceCodes;
+
+  @Size(min = 1)
+  @NotBlank
+  private final String resizeCacheFolder;
+
+  @Min(0)
+  private final Long resizeCacheMaxBytes;
+
+  @Min(1)
+  private final Integer resizeThreads;
+
+  @Min(0)
+  private final Integer resizeQueueCapacity;
+
+  @Min(0)
+  private final Integer resizeRetryAfterSeconds;
+
+  @Min(1)
+  private final Long resizeMaxDecodePixels;
+
+  /**
+   * 파일당 캐시하는 resize 크기 수. 넘는 크기는 만들어 응답하지만 캐시하지 않는다.
+   */
+  @Min(1)
+  private final Integer resizeCacheMaxSizesPerFile;
+
+  /**
+   * resize할 수 있는 최대 크기(가로, 세로)
+   */
+  @Min(1)
+  private final Integer resizeMaxSize;
+
+  /**
+   * 서비스별로 저장 시점에 미리 생성할 정사각형 이미지 크기(width=height). 미리 생성은 보장하지 않는다.
+   */
+  private final Map<String, List<@Min(1) Integer>> renditionSizes;
+
+  @Min(1)
+  private final Integer renditionThreads;
+
+  @Min(0)
+  private final Integer renditionQueueCapacity;
+
+  @NotBlank
+  private final String defaultCacheControl;
+
+  private final Map<String, String> cacheControls;
+
+  @Min(0)
+  private final Long metadataCacheMaxSize;
+
+  @NotNull
+  private final Duration metadataCacheTtl;
+
+  @NotNull
+  private final Duration metadataCacheNegativeTtl;
+
+  @NotNull
+  private final Boolean metadataCacheBroadcast;
+
+  @Min(1)
+  private final Integer batchSize;
+
+  @Min(1)
+  private final Integer fileIoThreads;
+
+  /**
+   * 이어 올리기(resumable upload)의 청크 크기. encryptChunkSize의 배수로 올림한다.
+   */
+  @Min(1024)
+  private final Integer uploadChunkSize;
+
+  /**
+   * 이어 올리기로 받을 수 있는 최대 파일 크기(바이트)
+   */
+  @Min(0)
+  private final Long uploadMaxFileSize;
+
+  /**
+   * 같은 내용의 파일을 하나의 블롭으로 저장하고 참조 수로 관리한다. (평문 서비스 제외)
+   */
+  private final Boolean contentAddressed;
+
+  @NotBlank
+  private final String blobFolder;
+
+  @NotBlank
+  private final String defaultStorage;
+
+  /**
+   * 서비스별 저장소. 예) file.storages.BOARD=s3
+   */
+  @NotNull
+  private final Map<String, String> storages;
+
+  /**
+   * S3 호환 저장소. s3Bucket을 설정해야 사용할 수 있다. s3Endpoint로 MinIO 등을 지정한다.
+   */
+  private final String s3Endpoint;
+
+  @NotBlank
+  private final String s3Region;
+
+  @ToString.Exclude
+  private final String s3AccessKey;
+
+  @ToString.Exclude
+  private final String s3SecretKey;
+
+  private final String s3Bucket;
+
+  @Min(5 * 1024 * 1024)
+  private final Integer s3PartSize;
+
+  @Min(5 * 1024 * 1024)
+  private final Long s3MultipartThreshold;
+
+  @Min(1)
+  private final Integer s3Threads;
+
+  /**
+   * reactive 프로필에서 블로킹 JDBC(MyBatis) 호출을 실행하는 스케줄러의 스레드 수. 커넥션 풀 크기에 맞춘다.
+   */
+  @Min(1)
+  private final Integer reactiveJdbcThreads;
+
+  @Min(1)
+  private final Integer tempReaperThreads;
+
+  /**
+   * 서비스별 임시 파일 정리 속도(초당 삭제 파일 수)
+   */
+  @Min(1)
+  private final Integer tempReaperDeletesPerSecond;
+
+  /**
+   * 임시 파일, 저장 파일 폴더를 fileId 해시로 나누는 단계 수(단계마다 256개). 0이면 나누지 않는다.
+   */
+  @Min(0)
+  @Max(4)
+  private final Integer shardDepth;
+
+  /**
+   * 시작 시 기존 저장 파일을 현재 shardDepth의 폴더로 옮기고 FILE_PATH를 변경한다.
+   */
+  @NotNull
+  private final Boolean shardMigrationEnabled;
+
+  /**
+   * true: TB_FILE과 저장 폴더를 비교(file.reconcile-cron)하여 찾은 불일치를 복구한다. false이면 보고(로그, 지표)만 한다.
+   */
+  @NotNull
+  private final Boolean reconcileRepair;
+
+  /**
+   * 등록, 수정된 지 이 시간이 지나지 않은 파일과 TB_FILE은 처리 중일 수 있으므로 비교하지 않는다.
+   */
+  @NotNull
+  private final Duration reconcileGracePeriod;
+
+  /**
+   * 비교 속도(초당 확인하는 파일 수)
+   */
+  @Min(1)
+  private final Integer reconcileFilesPerSecond;
+
+  /**
+   * 저장 폴더의 파일 목록을 정렬할 때 메모리에 두는 최대 건수. 넘으면 임시 폴더에 나누어 기록한 뒤 병합한다.
+   */
+  @Min(1)
+  private final Integer reconcileSortBufferSize;
+
+  /**
+   * 복구할 때 저장 파일이 없는(missing) TB_FILE이 이 건수를 넘으면 저장 폴더를 잘못 읽은 것으로 보고 TB_FILE을 삭제하지 않는다.
+   */
+  @Min(0)
+  private final Integer reconcileMaxMissingFiles;
+
+  /**
+   * 복구할 때 비교한 TB_FILE 중 저장 파일이 없는 비율(%)이 이 값을 넘으면 TB_FILE을 삭제하지 않는다.
+   */
+  @Min(0)
+  @Max(100)
+  private final Integer reconcileMaxMissingPercent;
+
+  /**
+   * 지표의 serviceCode 태그로 기록할 서비스 코드. 그 밖의 서비스는 태그 수가 늘지 않도록 other로 묶어 기록한다.
+   */
+  @NotNull
+  private final Set<String> metricsServiceCodes;
+
   public FileProperties(String basePath, String tempFolder, Integer tempFileMaxStorageDays,
       String saveFolder,
-      String encryptorPassword) {
+      String encryptorPassword,
+      String encryptorSalt,
+      Algorithm encryptorAlgorithm,
+      Boolean lazyMigration,
+      Integer encryptChunkSize,
+      Set<String> plainServiceCodes,
+      String resizeCacheFolder,
+      Long resizeCacheMaxBytes,
+      Integer resizeThreads,
+      Integer resizeQueueCapacity,
+      Integer resizeRetryAfterSeconds,
+      Long resizeMaxDecodePixels,
+      Map<String, List<Integer>> renditionSizes,
+      Integer renditionThreads,
+      Integer renditionQueueCapacity,
+      String defaultCacheControl,
+      Map<String, String> cacheControls,
+      Long metadataCacheMaxSize,
+      Duration metadataCacheTtl,
+      Duration metadataCacheNegativeTtl,
+      Boolean metadataCacheBroadcast,
+      Integer batchSize,
+      Integer fileIoThreads,
+      Integer uploadChunkSize,
+      Boolean contentAddressed,
+      String blobFolder,
+      String defaultStorage,
+      Map<String, String> storages,
+      String s3Endpoint,
+      String s3Region,
+      String s3AccessKey,
+      String s3SecretKey,
+      String s3Bucket,
+      Integer s3PartSize,
+      Long s3MultipartThreshold,
+      Integer s3Threads,
+      Integer reactiveJdbcThreads,
+      Integer tempReaperThreads,
+      Integer tempReaperDeletesPerSecond,
+      Integer shardDepth,
+      Boolean shardMigrationEnabled,
+      Boolean reconcileRepair,
+      Duration reconcileGracePeriod,
+      Integer reconcileFilesPerSecond,
+      Integer reconcileSortBufferSize,
+      Integer reconcileMaxMissingFiles,
+      Integer reconcileMaxMissingPercent,
+      Set<String> metricsServiceCodes,
+      Integer resizeCacheMaxSizesPerFile,
+      Integer resizeMaxSize,
+      Long uploadMaxFileSize) {
     this.basePath = DefaultUtils.getValue(basePath, Paths.get("file").toAbsolutePath().toString());
     this.tempFolder = DefaultUtils.getValue(tempFolder, "temp");
     this.tempFileMaxStorageDays = DefaultUtils.getValue(tempFileMaxStorageDays, 1);
     this.saveFolder = DefaultUtils.getValue(saveFolder, "save");
     this.encryptorPassword = DefaultUtils.getValue(encryptorPassword, "encryptorPassword");
+    this.encryptorSalt = DefaultUtils.getValue(encryptorSalt, "encryptorSalt");
+    this.encryptorAlgorithm = DefaultUtils.getValue(encryptorAlgorithm, Algorithm.AES_GCM);
+    this.lazyMigration = DefaultUtils.getValue(lazyMigration, true);
+    this.encryptChunkSize = DefaultUtils.getValue(encryptChunkSize, 64 * 1024);
+    this.plainServiceCodes = DefaultUtils.getValue(plainServiceCodes, Set.of());
+    this.resizeCacheFolder = DefaultUtils.getValue(resizeCacheFolder, "resize");
+    this.resizeCacheMaxBytes = DefaultUtils.getValue(resizeCacheMaxBytes, 64L * 1024 * 1024);
+    this.resizeThreads = DefaultUtils.getValue(resizeThreads,
+        Runtime.getRuntime().availableProcessors());
+    this.resizeQueueCapacity = DefaultUtils.getValue(resizeQueueCapacity, 100);
+    this.resizeRetryAfterSeconds = DefaultUtils.getValue(resizeRetryAfterSeconds, 1);
+    this.resizeMaxDecodePixels = DefaultUtils.getValue(resizeMaxDecodePixels, 4096L * 4096);
+    this.renditionSizes = DefaultUtils.getValue(renditionSizes, Map.of());
+    this.renditionThreads = DefaultUtils.getValue(renditionThreads, 1);
+    this.renditionQueueCapacity = DefaultUtils.getValue(renditionQueueCapacity, 10000);
+    this.defaultCacheControl = DefaultUtils.getValue(defaultCacheControl, "private, no-cache");
+    this.cacheControls = DefaultUtils.getValue(cacheControls, Map.of());
+    this.metadataCacheMaxSize = DefaultUtils.getValue(metadataCacheMaxSize, 100_000L);
+    this.metadataCacheTtl = DefaultUtils.getValue(metadataCacheTtl, Duration.ofMinutes(10));
+    this.metadataCacheNegativeTtl = DefaultUtils.getValue(metadataCacheNegativeTtl,
+        Duration.ofSeconds(5));
+    this.metadataCacheBroadcast = DefaultUtils.getValue(metadataCacheBroadcast, false);
+    this.batchSize = DefaultUtils.getValue(batchSize, 500);
+    this.fileIoThreads = DefaultUtils.getValue(fileIoThreads, 8);
+    this.uploadChunkSize = DefaultUtils.getValue(uploadChunkSize, 8 * 1024 * 1024);
+    this.contentAddressed = DefaultUtils.getValue(contentAddressed, false);
+    this.blobFolder = DefaultUtils.getValue(blobFolder, "blob");
+    this.defaultStorage = DefaultUtils.getValue(defaultStorage, "local");
+    this.storages = DefaultUtils.getValue(storages, Map.of());
+    this.s3Endpoint = s3Endpoint;
+    this.s3Region = DefaultUtils.getValue(s3Region, "us-east-1");
+    this.s3AccessKey = s3AccessKey;
+    this.s3SecretKey = s3SecretKey;
+    this.s3Bucket = s3Bucket;
+    this.s3PartSize = DefaultUtils.getValue(s3PartSize, 8 * 1024 * 1024);
+    this.s3MultipartThreshold = DefaultUtils.getValue(s3MultipartThreshold, 16L * 1024 * 1024);
+    this.s3Threads = DefaultUtils.getValue(s3Threads, 8);
+    this.reactiveJdbcThreads = DefaultUtils.getValue(reactiveJdbcThreads, 10);
+    this.tempReaperThreads = DefaultUtils.getValue(tempReaperThreads, 2);
+    this.tempReaperDeletesPerSecond = DefaultUtils.getValue(tempReaperDeletesPerSecond, 1000);
+    this.shardDepth = DefaultUtils.getValue(shardDepth, 0);
+    this.shardMigrationEnabled = DefaultUtils.getValue(shardMigrationEnabled, false);
+    this.reconcileRepair = DefaultUtils.getValue(reconcileRepair, false);
+    this.reconcileGracePeriod = DefaultUtils.getValue(reconcileGracePeriod, Duration.ofDays(1));
+    this.reconcileFilesPerSecond = DefaultUtils.getValue(reconcileFilesPerSecond, 1000);
+    this.reconcileSortBufferSize = DefaultUtils.getValue(reconcileSortBufferSize, 100000);
+    this.reconcileMaxMissingFiles = DefaultUtils.getValue(reconcileMaxMissingFiles, 1000);
+    this.reconcileMaxMissingPercent = DefaultUtils.getValue(reconcileMaxMissingPercent, 1);
+    this.metricsServiceCodes = DefaultUtils.getValue(metricsServiceCodes, Set.of());
+    this.resizeCacheMaxSizesPerFile = DefaultUtils.getValue(resizeCacheMaxSizesPerFile, 16);
+    this.resizeMaxSize = DefaultUtils.getValue(resizeMaxSize, 4096);
+    this.uploadMaxFileSize = DefaultUtils.getValue(uploadMaxFileSize, 10L * 1024 * 1024 * 1024);
   }
 
   public String getTempPath() {
     return basePath + File.separator + tempFolder;
   }
 
+  public String getServiceTempPath(String serviceCode) {
+    return getTempPath() + File.separator + serviceCode;
+  }
+
+  /**
+   * 임시 파일 경로. fileId의 생성 시각으로 시간 단위 폴더({@link #TEMP_BUCKET_FORMATTER})를 나누어 만료된 폴더를 통째로
+   * 정리할 수 있게 하고, 그 아래를 {@link #getShardNames(String)}로 나눈다. 생성 시각을 알 수 없는(이전에 발급한) fileId는
+   * 서비스 폴더 바로 아래에 둔다.
+   */
+  public Path getTempFile(String serviceCode, String fileId) {
+    Path serviceTempPath = Paths.get(getServiceTempPath(serviceCode));
+    Optional<Instant> createdTime = FileIdUtils.getCreatedTime(fileId);
+    if (createdTime.isEmpty()) {
+      return serviceTempPath.resolve(fileId);
+    }
+
+    Path directory = serviceTempPath.resolve(TEMP_BUCKET_FORMATTER.format(createdTime.get()));
+    for (String name : getShardNames(fileId)) {
+      directory = directory.resolve(name);
+    }
+
+    return directory.resolve(fileId);
+  }
+
+  public String[] getShardNames(String fileId) {
+    return FileIdUtils.getShardNames(fileId, shardDepth);
+  }
+
   public String getSavePath() {
     return basePath + File.separator + saveFolder;
   }
 
+  public String getResizeCachePath() {
+    return basePath + File.separator + resizeCacheFolder;
+  }
+
+  public List<Integer> getRenditionSizes(String serviceCode) {
+    return renditionSizes.getOrDefault(serviceCode, List.of());
+  }
+
+  /**
+   * 서비스별 Cache-Control 값. 예) file.cache-controls.BOARD=public, max-age=31536000, immutable
+   */
+  public String getCacheControl(String serviceCode) {
+    return cacheControls.getOrDefault(serviceCode, defaultCacheControl);
+  }
+
+  public boolean isPlainService(String serviceCode) {
+    return plainServiceCodes.contains(serviceCode);
+  }
+
+  public String getStorage(String serviceCode) {
+    return storages.getOrDefault(serviceCode, defaultStorage);
+  }
+
+  public boolean isContentAddressedService(String serviceCode) {
+    return contentAddressed && !isPlainService(serviceCode);
+  }
+
 }
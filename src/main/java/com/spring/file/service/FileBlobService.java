@@ -0,0 +1,242 @@
+package com.spring.file.service;
+
+import com.spring.file.mapper.FileBlobMapper;
+import com.spring.file.model.FileBlobDto;
+import com.spring.file.model.FileDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorage;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.util.PartitionUtils;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 내용 주소 기반(content-addressed) 저장소. 같은 내용의 파일은 평문 SHA-256 해시를 키로 하는 블롭 하나로 저장하고,
+ * TB_FILE_BLOB의 참조수가 0이 되면 블롭을 삭제한다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class FileBlobService {
+
+  private static final String HASH_ALGORITHM = "SHA-256";
+  private static final String HASH_SUFFIX = ".sha256";
+
+  private final FileProperties fileProperties;
+  private final FileBlobMapper fileBlobMapper;
+  private final FileStorageRegistry fileStorageRegistry;
+
+  public static MessageDigest newDigest() {
+    try {
+      return MessageDigest.getInstance(HASH_ALGORITHM);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  /**
+   * 임시 파일 옆에 해시 파일을 기록한다. 내용 없이 해시 파일만 있으면 기존 블롭을 참조하는 임시 파일이다.
+   */
+  public void writeHash(Path tempFile, String blobHash) throws IOException {
+    Files.writeString(getHashPath(tempFile), blobHash, StandardCharsets.US_ASCII);
+  }
+
+  public void writeHash(Path tempFile, MessageDigest digest) throws IOException {
+    writeHash(tempFile, HexFormat.of().formatHex(digest.digest()));
+  }
+
+  public Optional<String> readHash(Path tempFile) throws IOException {
+    Path hashPath = getHashPath(tempFile);
+    if (!Files.exists(hashPath)) {
+      return Optional.empty();
+    }
+
+    return Optional.of(Files.readString(hashPath, StandardCharsets.US_ASCII).trim());
+  }
+
+  public void deleteHash(Path tempFile) {
+    FileUtils.deleteQuietly(getHashPath(tempFile).toFile());
+  }
+
+  public String getBlobDirectory(FileStorage fileStorage, String blobHash) {
+    return fileStorage.resolve(fileStorage.getBaseLocation(), fileProperties.getBlobFolder(),
+        blobHash.substring(0, 2), blobHash.substring(2, 4));
+  }
+
+  /**
+   * 저장할 파일들의 블롭 참조수를 증가시킨다. 이미 있는 블롭은 그 블롭의 위치를 FILE_PATH로 사용한다. (트랜잭션 안에서,
+   * TB_FILE 등록 전에 호출)
+   *
+   * @param serviceCode 임시 파일의 서비스. 내용이 없는 임시 파일은 이미 등록된 블롭이 있어야 한다.
+   */
+  public void reference(String serviceCode, List<FileDto> fileDtoList) throws IOException {
+    List<String> blobHashes = fileDtoList.stream()
+        .map(FileDto::getBlobHash)
+        .filter(Objects::nonNull)
+        .distinct()
+        .toList();
+    if (blobHashes.isEmpty()) {
+      return;
+    }
+
+    Map<String, String> blobPathMap = new HashMap<>();
+    for (List<String> partition : PartitionUtils.partition(blobHashes,
+        fileProperties.getBatchSize())) {
+      fileBlobMapper.findByBlobHashesForUpdate(partition)
+          .forEach(blob -> blobPathMap.put(blob.getBlobHash(), blob.getFilePath()));
+    }
+
+    for (FileDto fileDto : fileDtoList) {
+      if (fileDto.getBlobHash() == null) {
+        continue;
+      }
+
+      String blobPath = blobPathMap.get(fileDto.getBlobHash());
+      if (blobPath != null) {
+        fileDto.setFilePath(blobPath);
+      } else if (!Files.exists(fileProperties.getTempFile(serviceCode, fileDto.getFileId()))) {
+        throw new FileNotFoundException(fileDto.getFileId());
+      }
+    }
+
+    Map<String, FileBlobDto> blobMap = groupByBlobHash(fileDtoList);
+
+    for (List<FileBlobDto> partition : PartitionUtils.partition(
+        new ArrayList<>(blobMap.values()), fileProperties.getBatchSize())) {
+      fileBlobMapper.insertOrIncrease(partition);
+    }
+  }
+
+  /**
+   * 삭제할 파일들의 블롭 참조수를 감소시키고, 참조가 없어진 블롭을 반환한다. (트랜잭션 안에서 호출)
+   */
+  public List<FileBlobDto> release(List<FileDto> fileDtoList) {
+    Map<String, FileBlobDto> blobMap = groupByBlobHash(fileDtoList);
+    List<FileBlobDto> unreferencedList = new ArrayList<>();
+
+    for (List<FileBlobDto> partition : PartitionUtils.partition(
+        new ArrayList<>(blobMap.values()), fileProperties.getBatchSize())) {
+      fileBlobMapper.decrease(partition);
+
+      List<String> blobHashes = partition.stream()
+          .map(FileBlobDto::getBlobHash)
+          .toList();
+      List<FileBlobDto> unreferenced = fileBlobMapper.findByBlobHashes(blobHashes).stream()
+          .filter(blob -> blob.getReferenceCount() <= 0)
+          .toList();
+      if (!unreferenced.isEmpty()) {
+        fileBlobMapper.deleteUnreferenced(unreferenced.stream()
+            .map(FileBlobDto::getBlobHash)
+            .toList());
+        unreferencedList.addAll(unreferenced);
+      }
+    }
+
+    return unreferencedList;
+  }
+
+  /**
+   * 임시 파일을 블롭 위치로 옮긴다. 이미 같은 블롭이 있으면 임시 파일은 버린다. (커밋 후 호출)
+   */
+  public void store(Path tempFile, FileDto fileDto) throws IOException {
+    String location = fileStorageRegistry.getLocation(fileDto);
+    FileStorage fileStorage = fileStorageRegistry.forLocation(location);
+
+    if (Files.exists(tempFile)) {
+      if (fileStorage.exists(location)) {
+        Files.delete(tempFile);
+      } else {
+        fileStorage.put(tempFile, location);
+      }
+    }
+    deleteHash(tempFile);
+  }
+
+  /**
+   * 참조가 없어진 블롭 파일을 삭제한다. 그 사이 다시 참조된 블롭은 남겨둔다. (커밋 후 호출)
+   * <p>
+   * 확인부터 파일 삭제까지 별도 트랜잭션에서 블롭 행(없으면 그 자리의 gap)을 SELECT ... FOR UPDATE로 잠그므로, 동시에 같은 블롭을
+   * {@link #reference(String, List)}하는 저장은 삭제가 끝날 때까지 기다린 뒤 블롭이 없는 것으로 보고 임시 파일을 옮긴다.
+   */
+  @Transactional(propagation = Propagation.REQUIRES_NEW)
+  public void delete(List<FileBlobDto> blobList) throws IOException {
+    if (blobList.isEmpty()) {
+      return;
+    }
+
+    List<String> blobHashes = blobList.stream()
+        .map(FileBlobDto::getBlobHash)
+        .toList();
+    Set<String> referencedHashes = new HashSet<>();
+    for (List<String> partition : PartitionUtils.partition(blobHashes,
+        fileProperties.getBatchSize())) {
+      fileBlobMapper.findByBlobHashesForUpdate(partition).stream()
+          .map(FileBlobDto::getBlobHash)
+          .forEach(referencedHashes::add);
+    }
+
+    Map<FileStorage, List<String>> deletedLocations = new LinkedHashMap<>();
+    for (FileBlobDto blob : blobList) {
+      if (referencedHashes.contains(blob.getBlobHash())) {
+        continue;
+      }
+
+      FileStorage fileStorage = fileStorageRegistry.forLocation(blob.getFilePath());
+      String location = fileStorage.resolve(blob.getFilePath(), blob.getBlobHash());
+      if (fileStorage.exists(location)) {
+        fileStorage.delete(location);
+        deletedLocations.computeIfAbsent(fileStorage, key -> new ArrayList<>()).add(location);
+      }
+      log.debug("블롭을 삭제했습니다. blobHash={}", blob.getBlobHash());
+    }
+
+    for (Map.Entry<FileStorage, List<String>> entry : deletedLocations.entrySet()) {
+      entry.getKey().deleteEmptyDirectories(entry.getValue());
+    }
+  }
+
+  private Map<String, FileBlobDto> groupByBlobHash(List<FileDto> fileDtoList) {
+    Map<String, FileBlobDto> blobMap = new LinkedHashMap<>();
+    for (FileDto fileDto : fileDtoList) {
+      if (fileDto.getBlobHash() == null) {
+        continue;
+      }
+
+      FileBlobDto blob = blobMap.computeIfAbsent(fileDto.getBlobHash(),
+          blobHash -> FileBlobDto.builder()
+              .blobHash(blobHash)
+              .filePath(fileDto.getFilePath())
+              .fileSize(fileDto.getFileSize())
+              .build());
+      blob.setReferenceCount(blob.getReferenceCount() + 1);
+    }
+
+    return blobMap;
+  }
+
+  private Path getHashPath(Path tempFile) {
+    return tempFile.resolveSibling(tempFile.getFileName() + HASH_SUFFIX);
+  }
+
+}
@@ -0,0 +1,99 @@
+package com.spring.file.service;
+
+import com.spring.file.mapper.FileDeleteMapper;
+import com.spring.file.model.FileDeleteDto;
+import com.spring.file.model.FileDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorage;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.util.PartitionUtils;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 저장 파일 삭제 대기열(TB_FILE_DELETE). TB_FILE 삭제와 같은 트랜잭션에서 대기열에 넣고, 커밋된 뒤 백그라운드에서 batchSize개씩
+ * 삭제한 다음 비게 된 폴더를 묶음마다 한 번 정리한다. 삭제 중에 서버가 멈춰도 대기열이 남아 있으므로 다음 실행에서 이어서 삭제한다.
+ * 이미 없는 파일은 삭제한 것으로 보므로 여러 서버에서 같은 항목을 처리해도 된다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class FileDeleteService {
+
+  private final FileProperties fileProperties;
+  private final FileDeleteMapper fileDeleteMapper;
+  private final FileStorageRegistry fileStorageRegistry;
+
+  /**
+   * 블롭으로 저장된 파일은 참조수로 관리하므로 넣지 않는다. (트랜잭션 안에서 호출)
+   */
+  public void enqueue(List<FileDto> fileDtoList) {
+    List<FileDeleteDto> deleteList = fileDtoList.stream()
+        .filter(fileDto -> fileDto.getBlobHash() == null)
+        .map(fileDto -> FileDeleteDto.builder()
+            .fileId(fileDto.getFileId())
+            .location(fileStorageRegistry.getLocation(fileDto))
+            .build())
+        .toList();
+
+    for (List<FileDeleteDto> partition : PartitionUtils.partition(deleteList,
+        fileProperties.getBatchSize())) {
+      fileDeleteMapper.insertBulk(partition);
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${file.delete-interval:1000}")
+  public void deletePending() {
+    long lastDeleteSeq = 0;
+
+    List<FileDeleteDto> deleteList;
+    do {
+      deleteList = fileDeleteMapper.findAfter(lastDeleteSeq, fileProperties.getBatchSize());
+      if (!deleteList.isEmpty()) {
+        lastDeleteSeq = deleteList.get(deleteList.size() - 1).getDeleteSeq();
+        delete(deleteList);
+      }
+    } while (!deleteList.isEmpty());
+  }
+
+  /**
+   * 삭제하지 못한 항목은 대기열에 남겨 다음 실행에서 다시 시도한다.
+   */
+  private void delete(List<FileDeleteDto> deleteList) {
+    Map<FileStorage, List<String>> deletedLocations = new LinkedHashMap<>();
+    List<Long> deletedSeqs = new ArrayList<>();
+
+    for (FileDeleteDto delete : deleteList) {
+      FileStorage fileStorage = fileStorageRegistry.forLocation(delete.getLocation());
+      try {
+        fileStorage.delete(delete.getLocation());
+        deletedLocations.computeIfAbsent(fileStorage, key -> new ArrayList<>())
+            .add(delete.getLocation());
+        deletedSeqs.add(delete.getDeleteSeq());
+      } catch (IOException | RuntimeException e) {
+        log.warn("저장 파일을 삭제할 수 없습니다. fileId={}, location={}", delete.getFileId(),
+            delete.getLocation(), e);
+      }
+    }
+
+    for (Map.Entry<FileStorage, List<String>> entry : deletedLocations.entrySet()) {
+      try {
+        entry.getKey().deleteEmptyDirectories(entry.getValue());
+      } catch (IOException e) {
+        log.warn("빈 폴더를 삭제할 수 없습니다. storage={}", entry.getKey().getName(), e);
+      }
+    }
+
+    if (!deletedSeqs.isEmpty()) {
+      fileDeleteMapper.deleteByDeleteSeqs(deletedSeqs);
+    }
+  }
+
+}
@@ -0,0 +1,182 @@
+package com.spring.file.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.spring.file.mapper.FileCacheEvictMapper;
+import com.spring.file.model.FileCacheEvictDto;
+import com.spring.file.model.FileDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.util.PartitionUtils;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Function;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * fileId별 메타데이터 캐시. 존재하지 않는 fileId도 짧은 시간 동안 캐시한다.
+ * <p>
+ * file.metadata-cache-broadcast가 true이면 무효화한 fileId를 TB_FILE_CACHE_EVICT에 기록하고, 각 노드는 이를 주기적으로
+ * 조회하여 자신의 캐시에서 제거한다. EVICT_SEQ는 발급 순서대로 커밋되지 않으므로 마지막으로 읽은 순번보다 앞에서 비어 있던
+ * 순번은 EVICT_GAP_TIMEOUT 동안 다시 조회한다(늦게 커밋된 트랜잭션). 롤백 등으로 끝내 채워지지 않은 순번은 그 뒤에 잊는다.
+ */
+@Component
+public class FileMetadataCache {
+
+  /**
+   * 비어 있는 순번을 다시 조회하는 시간. 이보다 오래 열려 있는 트랜잭션의 무효화는 놓칠 수 있다.
+   */
+  private static final Duration EVICT_GAP_TIMEOUT = Duration.ofMinutes(1);
+
+  /**
+   * 다시 조회할 비어 있는 순번이 이보다 많으면 오래된 순번부터 잊는다.
+   */
+  private static final int MAX_EVICT_GAPS = 10000;
+
+  private final FileProperties fileProperties;
+  private final FileCacheEvictMapper fileCacheEvictMapper;
+  private final Cache<String, Optional<FileDto>> cache;
+  /**
+   * 비어 있던 순번과 처음 발견한 시각 ({@link #receiveEvicts()}에서만 사용)
+   */
+  private final NavigableMap<Long, Instant> evictSeqGaps = new TreeMap<>();
+  private volatile Long lastEvictSeq;
+
+  public FileMetadataCache(FileProperties fileProperties,
+      FileCacheEvictMapper fileCacheEvictMapper, MeterRegistry meterRegistry) {
+    this.fileProperties = fileProperties;
+    this.fileCacheEvictMapper = fileCacheEvictMapper;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(fileProperties.getMetadataCacheMaxSize())
+        .expireAfter(new Expiry<String, Optional<FileDto>>() {
+          @Override
+          public long expireAfterCreate(String fileId, Optional<FileDto> fileDto,
+              long currentTime) {
+            return fileDto.isPresent()
+                ? fileProperties.getMetadataCacheTtl().toNanos()
+                : fileProperties.getMetadataCacheNegativeTtl().toNanos();
+          }
+
+          @Override
+          public long expireAfterUpdate(String fileId, Optional<FileDto> fileDto,
+              long currentTime, long currentDuration) {
+            return expireAfterCreate(fileId, fileDto, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(String fileId, Optional<FileDto> fileDto,
+              long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, "file.metadata");
+  }
+
+  public FileDto get(String fileId, Function<String, FileDto> loader) {
+    return cache.get(fileId, key -> Optional.ofNullable(loader.apply(key)))
+        .orElse(null);
+  }
+
+  /**
+   * 트랜잭션 안에서 호출하면 커밋 후에 한 번 더 제거한다. (커밋 전에 다른 요청이 이전 값을 다시 캐시한 경우)
+   */
+  public void evict(Collection<String> fileIds) {
+    if (ObjectUtils.isEmpty(fileIds)) {
+      return;
+    }
+
+    cache.invalidateAll(fileIds);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          cache.invalidateAll(fileIds);
+        }
+      });
+    }
+
+    if (fileProperties.getMetadataCacheBroadcast()) {
+      for (List<String> partition : PartitionUtils.partition(List.copyOf(fileIds),
+          fileProperties.getBatchSize())) {
+        fileCacheEvictMapper.insertBulk(partition);
+      }
+    }
+  }
+
+  @Scheduled(fixedDelayString = "${file.metadata-cache-broadcast-interval:1000}")
+  public void receiveEvicts() {
+    if (!fileProperties.getMetadataCacheBroadcast()) {
+      return;
+    }
+
+    if (lastEvictSeq == null) {
+      lastEvictSeq = Optional.ofNullable(fileCacheEvictMapper.findMaxEvictSeq()).orElse(0L);
+      return;
+    }
+
+    receiveGaps();
+
+    List<FileCacheEvictDto> evicts;
+    do {
+      evicts = fileCacheEvictMapper.findAfter(lastEvictSeq);
+      Instant now = Instant.now();
+      for (FileCacheEvictDto evict : evicts) {
+        cache.invalidate(evict.getFileId());
+        for (long evictSeq = Math.max(lastEvictSeq + 1, evict.getEvictSeq() - MAX_EVICT_GAPS);
+            evictSeq < evict.getEvictSeq(); evictSeq++) {
+          evictSeqGaps.put(evictSeq, now);
+        }
+        lastEvictSeq = evict.getEvictSeq();
+      }
+    } while (!evicts.isEmpty());
+
+    while (evictSeqGaps.size() > MAX_EVICT_GAPS) {
+      evictSeqGaps.pollFirstEntry();
+    }
+  }
+
+  /**
+   * 비어 있던 순번 중 그 사이 커밋된 무효화를 반영한다.
+   */
+  private void receiveGaps() {
+    Instant expiredTime = Instant.now().minus(EVICT_GAP_TIMEOUT);
+    evictSeqGaps.values().removeIf(foundTime -> foundTime.isBefore(expiredTime));
+    if (evictSeqGaps.isEmpty()) {
+      return;
+    }
+
+    for (List<Long> partition : PartitionUtils.partition(
+        new ArrayList<>(evictSeqGaps.keySet()), fileProperties.getBatchSize())) {
+      for (FileCacheEvictDto evict : fileCacheEvictMapper.findByEvictSeqs(partition)) {
+        cache.invalidate(evict.getFileId());
+        evictSeqGaps.remove(evict.getEvictSeq());
+      }
+    }
+  }
+
+  @Scheduled(cron = "0 0 * * * *")
+  public void deleteEvicts() {
+    if (!fileProperties.getMetadataCacheBroadcast()) {
+      return;
+    }
+
+    LocalDateTime before = LocalDateTime.now().minus(fileProperties.getMetadataCacheTtl());
+    fileCacheEvictMapper.deleteBefore(before);
+  }
+
+}
@@ -0,0 +1,188 @@
+package com.spring.file.service;
+
+import com.spring.file.mapper.FileMapper;
+import com.spring.file.mapper.FileMoveMapper;
+import com.spring.file.model.FileDto;
+import com.spring.file.model.FileMoveDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorage;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.util.PartitionUtils;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * 임시 파일 이동 대기열(TB_FILE_MOVE). TB_FILE 등록과 같은 트랜잭션에서 대기열에 넣고, 커밋된 뒤 임시 파일을 저장 위치로 옮긴
+ * 다음 대기열에서 뺀다. 옮기지 못한 파일은 대기열에 남아 있으므로 백그라운드에서 성공할 때까지 다시 시도하며, 그동안 임시 파일은
+ * {@link TempFileReaper}가 정리하지 않는다. 이미 옮긴 파일은 옮긴 것으로 보므로 여러 서버에서 같은 항목을 처리해도 된다.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@Service
+public class FileMoveService {
+
+  /**
+   * 커밋 직후의 이동과 겹치지 않도록 등록된 지 이 시간이 지난 항목만 다시 시도한다.
+   */
+  private static final Duration RETRY_DELAY = Duration.ofMinutes(1);
+
+  private final FileProperties fileProperties;
+  private final FileMoveMapper fileMoveMapper;
+  private final FileMapper fileMapper;
+  private final FileBlobService fileBlobService;
+  private final FileTransferService fileTransferService;
+  private final FileStorageRegistry fileStorageRegistry;
+
+  /**
+   * 트랜잭션 안에서 호출
+   */
+  public void enqueue(String serviceCode, List<FileDto> fileDtoList) {
+    List<FileMoveDto> moveList = fileDtoList.stream()
+        .map(fileDto -> FileMoveDto.builder()
+            .fileId(fileDto.getFileId())
+            .serviceCode(serviceCode)
+            .build())
+        .toList();
+
+    for (List<FileMoveDto> partition : PartitionUtils.partition(moveList,
+        fileProperties.getBatchSize())) {
+      fileMoveMapper.insertBulk(partition);
+    }
+  }
+
+  /**
+   * 임시 파일을 저장 위치로 옮기고 옮긴 파일을 대기열에서 뺀다. 옮기지 못한 파일은 {@link #movePending()}에서 다시
+   * 시도한다. (커밋 후 호출)
+   *
+   * @return 옮기지 못한 파일 수
+   */
+  public int move(String serviceCode, List<FileDto> fileDtoList) {
+    List<String> movedFileIds = Collections.synchronizedList(new ArrayList<>());
+    try {
+      fileTransferService.forEach(fileDtoList, fileDto -> {
+        try {
+          move(serviceCode, fileDto);
+          movedFileIds.add(fileDto.getFileId());
+        } catch (IOException | RuntimeException e) {
+          log.warn("임시 파일을 옮길 수 없습니다. 다시 시도합니다. fileId={}", fileDto.getFileId(), e);
+        }
+      });
+    } catch (IOException e) {
+      log.warn("임시 파일을 옮길 수 없습니다. 다시 시도합니다. serviceCode={}", serviceCode, e);
+    }
+
+    deleteByFileIds(movedFileIds);
+    return fileDtoList.size() - movedFileIds.size();
+  }
+
+  @Scheduled(fixedDelayString = "${file.move-retry-interval:60000}")
+  public void movePending() {
+    LocalDateTime registeredBefore = LocalDateTime.now().minus(RETRY_DELAY);
+    String lastFileId = null;
+
+    List<FileMoveDto> moveList;
+    do {
+      moveList = fileMoveMapper.findBefore(lastFileId, registeredBefore,
+          fileProperties.getBatchSize());
+      if (!moveList.isEmpty()) {
+        lastFileId = moveList.get(moveList.size() - 1).getFileId();
+        movePending(moveList);
+      }
+    } while (!moveList.isEmpty());
+  }
+
+  /**
+   * 이동을 기다리는 파일ID. {@link TempFileReaper}가 정리하지 않도록 한다.
+   */
+  public Set<String> findPendingFileIds(String serviceCode) {
+    return new HashSet<>(fileMoveMapper.findFileIdsByServiceCode(serviceCode));
+  }
+
+  /**
+   * 그 사이 삭제된 파일은 옮기지 않고 임시 파일을 삭제한다.
+   */
+  private void movePending(List<FileMoveDto> moveList) {
+    Map<String, FileDto> fileMap = fileMapper.findByFileIds(moveList.stream()
+            .map(FileMoveDto::getFileId)
+            .toList()).stream()
+        .collect(Collectors.toMap(FileDto::getFileId, Function.identity()));
+
+    Map<String, List<FileDto>> serviceFileMap = new LinkedHashMap<>();
+    List<String> deletedFileIds = new ArrayList<>();
+    for (FileMoveDto move : moveList) {
+      FileDto fileDto = fileMap.get(move.getFileId());
+      if (fileDto != null) {
+        serviceFileMap.computeIfAbsent(move.getServiceCode(), key -> new ArrayList<>())
+            .add(fileDto);
+        continue;
+      }
+
+      Path tempFile = fileProperties.getTempFile(move.getServiceCode(), move.getFileId());
+      try {
+        Files.deleteIfExists(tempFile);
+        fileBlobService.deleteHash(tempFile);
+        deletedFileIds.add(move.getFileId());
+      } catch (IOException e) {
+        log.warn("임시 파일을 삭제할 수 없습니다. fileId={}", move.getFileId(), e);
+      }
+    }
+
+    deleteByFileIds(deletedFileIds);
+
+    serviceFileMap.forEach((serviceCode, fileDtoList) -> {
+      int failedCount = move(serviceCode, fileDtoList);
+      if (failedCount > 0) {
+        log.warn("옮기지 못한 임시 파일이 있습니다. serviceCode={}, failedCount={}", serviceCode,
+            failedCount);
+      }
+    });
+  }
+
+  /**
+   * 임시 파일이 없고 저장 위치에 파일이 있으면 이미 옮긴 파일이다.
+   */
+  private void move(String serviceCode, FileDto fileDto) throws IOException {
+    Path tempFile = fileProperties.getTempFile(serviceCode, fileDto.getFileId());
+    if (fileDto.getBlobHash() != null) {
+      fileBlobService.store(tempFile, fileDto);
+      return;
+    }
+
+    String location = fileStorageRegistry.getLocation(fileDto);
+    FileStorage fileStorage = fileStorageRegistry.forLocation(location);
+    if (Files.exists(tempFile)) {
+      fileStorage.put(tempFile, location);
+    } else if (!fileStorage.exists(location)) {
+      throw new FileNotFoundException(fileDto.getFileId());
+    }
+  }
+
+  private void deleteByFileIds(List<String> fileIds) {
+    try {
+      for (List<String> partition : PartitionUtils.partition(fileIds,
+          fileProperties.getBatchSize())) {
+        fileMoveMapper.deleteByFileIds(partition);
+      }
+    } catch (RuntimeException e) {
+      log.warn("이동 대기열을 정리할 수 없습니다. 다음 실행에서 다시 확인합니다.", e);
+    }
+  }
+
+}
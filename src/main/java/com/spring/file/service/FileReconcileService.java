@@ -0,0 +1,481 @@
+package com.spring.file.service;
+
+import com.spring.file.mapper.FileMapper;
+import com.spring.file.metrics.FileMetrics;
+import com.spring.file.model.FileDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorage;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.util.Throttle;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.FileUtils;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * TB_FILE과 로컬 저장 폴더(saveFolder)를 비교하여 불일치를 찾고, reconcileRepair이면 복구한다.
+ * <ul>
+ * <li>orphan: TB_FILE에 없는 저장 파일. 삭제 대기열({@link FileDeleteService})에 넣는다.
+ * <li>missing: 저장 파일이 없는 TB_FILE. 임시 파일이 남아 있으면(저장 중 이동 실패) 옮기고, 없으면 TB_FILE을 삭제한다.
+ * 비교가 끝날 때까지 삭제할 FILE_ID를 임시 폴더에 모아 두었다가, 그 수가 reconcileMaxMissingFiles 또는 비교한 TB_FILE의
+ * reconcileMaxMissingPercent%를 넘으면 저장 폴더를 잘못 읽은 것(마운트 누락 등)으로 보고 삭제하지 않는다.
+ * <li>misplaced: FILE_PATH와 다른 폴더에 있는 저장 파일. FILE_PATH를 실제 위치로 변경한다.
+ * </ul>
+ * 저장 폴더를 NIO로 읽으면서 reconcileSortBufferSize건씩 fileId 순서로 정렬하여 임시 폴더에 기록하고, 이를 병합한 목록과
+ * TB_FILE을 FILE_ID 순서(keyset)로 batchSize건씩 읽은 목록을 앞에서부터 함께 비교한다. 파일 수와 관계없이 메모리 사용량이
+ * 일정하며, 파일 확인 속도는 reconcileFilesPerSecond로 제한한다. 등록, 수정된 지 reconcileGracePeriod가 지나지 않은 파일과
+ * TB_FILE은 처리 중일 수 있으므로 건너뛴다.
+ * <p>
+ * 블롭(blobFolder)과 로컬이 아닌 저장소는 비교하지 않는다. 여러 서버에서 동시에 실행하지 않도록 한 서버에만
+ * file.reconcile-cron을 설정한다. 비교는 fileReconcileExecutor에서 실행하므로 다른 @Scheduled 작업을 막지 않는다.
+ */
+@Slf4j
+@Service
+public class FileReconcileService {
+
+  public static final String ORPHAN = "orphan";
+  public static final String MISSING = "missing";
+  public static final String MISPLACED = "misplaced";
+
+  private static final String RECONCILING_FOLDER = ".reconciling";
+
+  /**
+   * 정렬한 파일 목록의 한 줄: fileId, 수정 시각(ms), 위치. 탭은 fileId에 쓰이는 어떤 문자보다 앞서므로 줄 순서가 fileId 순서와 같다.
+   */
+  private static final String SEPARATOR = "\t";
+
+  private final FileProperties fileProperties;
+  private final FileMapper fileMapper;
+  private final FileStorageRegistry fileStorageRegistry;
+  private final FileDeleteService fileDeleteService;
+  private final FileMetadataCache fileMetadataCache;
+  private final FileMetrics fileMetrics;
+  private final TaskExecutor fileReconcileExecutor;
+
+  public FileReconcileService(FileProperties fileProperties, FileMapper fileMapper,
+      FileStorageRegistry fileStorageRegistry, FileDeleteService fileDeleteService,
+      FileMetadataCache fileMetadataCache, FileMetrics fileMetrics,
+      @Qualifier("fileReconcileExecutor") TaskExecutor fileReconcileExecutor) {
+    this.fileProperties = fileProperties;
+    this.fileMapper = fileMapper;
+    this.fileStorageRegistry = fileStorageRegistry;
+    this.fileDeleteService = fileDeleteService;
+    this.fileMetadataCache = fileMetadataCache;
+    this.fileMetrics = fileMetrics;
+    this.fileReconcileExecutor = fileReconcileExecutor;
+  }
+
+  @Scheduled(cron = "${file.reconcile-cron:-}")
+  public void schedule() {
+    try {
+      fileReconcileExecutor.execute(this::reconcile);
+    } catch (TaskRejectedException e) {
+      log.warn("이전 저장 파일 비교가 끝나지 않아 이번 비교를 건너뜁니다.");
+    }
+  }
+
+  public void reconcile() {
+    Path savePath = Paths.get(fileProperties.getSavePath());
+    if (!Files.isDirectory(savePath)) {
+      return;
+    }
+
+    Path workPath = Paths.get(fileProperties.getTempPath(), RECONCILING_FOLDER,
+        UUID.randomUUID().toString());
+    Throttle throttle = new Throttle(fileProperties.getReconcileFilesPerSecond());
+    Reconciliation reconciliation = new Reconciliation(workPath, throttle);
+
+    try {
+      List<Path> runs = sortSavedFiles(savePath, workPath, throttle);
+      try (SavedFileIterator savedFiles = new SavedFileIterator(runs);
+          reconciliation) {
+        reconciliation.run(savedFiles);
+      }
+      log.info("저장 파일 비교를 완료했습니다. repair={}, mismatches={}",
+          fileProperties.getReconcileRepair(), reconciliation.counts);
+    } catch (IOException | RuntimeException e) {
+      log.warn("저장 파일을 비교할 수 없습니다. mismatches={}", reconciliation.counts, e);
+    } finally {
+      FileUtils.deleteQuietly(workPath.toFile());
+    }
+  }
+
+  /**
+   * 저장 폴더의 파일을 reconcileSortBufferSize건씩 정렬하여 기록한 파일(run) 목록
+   */
+  private List<Path> sortSavedFiles(Path savePath, Path workPath, Throttle throttle)
+      throws IOException {
+    Files.createDirectories(workPath);
+    List<String> buffer = new ArrayList<>();
+    List<Path> runs = new ArrayList<>();
+
+    Files.walkFileTree(savePath, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+          throws IOException {
+        throttle.acquire();
+        String fileId = file.getFileName().toString();
+        // 저장소에 복사 중인 파일({fileId}.{UUID}) 등은 제외한다.
+        if (attributes.isRegularFile() && isFileId(fileId)) {
+          buffer.add(String.join(SEPARATOR, fileId,
+              String.valueOf(attributes.lastModifiedTime().toMillis()), file.toString()));
+          if (buffer.size() >= fileProperties.getReconcileSortBufferSize()) {
+            runs.add(writeRun(workPath, buffer));
+          }
+        }
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+        // 비교 중에 삭제, 이동된 파일
+        if (e instanceof NoSuchFileException) {
+          return FileVisitResult.CONTINUE;
+        }
+        throw e;
+      }
+    });
+
+    if (!buffer.isEmpty()) {
+      runs.add(writeRun(workPath, buffer));
+    }
+
+    return runs;
+  }
+
+  private Path writeRun(Path workPath, List<String> buffer) throws IOException {
+    Collections.sort(buffer);
+    Path run = workPath.resolve(UUID.randomUUID().toString());
+    try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+      for (String line : buffer) {
+        writer.write(line);
+        writer.newLine();
+      }
+    }
+    buffer.clear();
+
+    return run;
+  }
+
+  private boolean isFileId(String name) {
+    try {
+      return UUID.fromString(name).toString().equals(name);
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private record SavedFile(String fileId, Instant lastModifiedTime, String location) {
+
+    static SavedFile parse(String line) {
+      String[] values = line.split(SEPARATOR, 3);
+      return new SavedFile(values[0], Instant.ofEpochMilli(Long.parseLong(values[1])),
+          values[2]);
+    }
+
+    String getDirectory() {
+      return Paths.get(location).getParent().toString();
+    }
+
+  }
+
+  /**
+   * 정렬한 파일(run)들을 한 줄씩 읽어 fileId 순서로 병합한다.
+   */
+  private static class SavedFileIterator implements Closeable {
+
+    private final List<BufferedReader> readers = new ArrayList<>();
+    private final PriorityQueue<Map.Entry<SavedFile, BufferedReader>> heads =
+        new PriorityQueue<>(Comparator.comparing(
+            (Map.Entry<SavedFile, BufferedReader> head) -> head.getKey().fileId()));
+
+    SavedFileIterator(List<Path> runs) throws IOException {
+      try {
+        for (Path run : runs) {
+          BufferedReader reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+          readers.add(reader);
+          advance(reader);
+        }
+      } catch (IOException e) {
+        close();
+        throw e;
+      }
+    }
+
+    boolean hasNext() {
+      return !heads.isEmpty();
+    }
+
+    SavedFile peek() {
+      return heads.element().getKey();
+    }
+
+    SavedFile next() throws IOException {
+      Map.Entry<SavedFile, BufferedReader> head = heads.remove();
+      advance(head.getValue());
+      return head.getKey();
+    }
+
+    private void advance(BufferedReader reader) throws IOException {
+      String line = reader.readLine();
+      if (line != null) {
+        heads.add(Map.entry(SavedFile.parse(line), reader));
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      for (BufferedReader reader : readers) {
+        reader.close();
+      }
+    }
+
+  }
+
+  /**
+   * 한 번의 비교. 복구할 항목을 batchSize개씩 모아서 처리하며, missing은 비교가 끝난 뒤 한 번에 처리한다.
+   */
+  private class Reconciliation implements Closeable {
+
+    private final Path missingPath;
+    private final Throttle throttle;
+    private final boolean repair = fileProperties.getReconcileRepair();
+    private final Instant graceTime = Instant.now()
+        .minus(fileProperties.getReconcileGracePeriod());
+    private final LocalDateTime graceDateTime = LocalDateTime.now()
+        .minus(fileProperties.getReconcileGracePeriod());
+    private final String savePath = fileProperties.getSavePath() + File.separator;
+
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+    private final List<FileDto> orphanFiles = new ArrayList<>();
+    private final List<FileDto> misplacedFiles = new ArrayList<>();
+    private BufferedWriter missingWriter;
+    private long missingCount;
+    private long checkedCount;
+
+    Reconciliation(Path workPath, Throttle throttle) {
+      this.missingPath = workPath.resolve(MISSING);
+      this.throttle = throttle;
+    }
+
+    void run(SavedFileIterator savedFiles) throws IOException {
+      String lastFileId = null;
+      List<FileDto> files;
+      do {
+        files = fileMapper.findByFileIdAfter(lastFileId, fileProperties.getBatchSize());
+        for (FileDto file : files) {
+          // DB의 정렬 순서가 다르면 TB_FILE에 있는 파일을 orphan으로 판단할 수 있으므로 중단한다.
+          if (lastFileId != null && file.getFileId().compareTo(lastFileId) <= 0) {
+            throw new IllegalStateException(
+                "FILE_ID 정렬 순서가 다릅니다. fileId=" + file.getFileId());
+          }
+          lastFileId = file.getFileId();
+
+          while (savedFiles.hasNext()
+              && savedFiles.peek().fileId().compareTo(file.getFileId()) < 0) {
+            orphan(savedFiles.next());
+          }
+          List<SavedFile> matchedFiles = new ArrayList<>();
+          while (savedFiles.hasNext() && savedFiles.peek().fileId().equals(file.getFileId())) {
+            matchedFiles.add(savedFiles.next());
+          }
+          reconcile(file, matchedFiles);
+        }
+      } while (!files.isEmpty());
+
+      while (savedFiles.hasNext()) {
+        orphan(savedFiles.next());
+      }
+      flush();
+      deleteMissing();
+    }
+
+    private void reconcile(FileDto file, List<SavedFile> savedFiles) throws IOException {
+      if (file.getBlobHash() != null || !file.getFilePath().startsWith(savePath)) {
+        for (SavedFile savedFile : savedFiles) {
+          orphan(savedFile);
+        }
+        return;
+      }
+      if (file.getRegisteredDateTime() != null
+          && file.getRegisteredDateTime().isAfter(graceDateTime)) {
+        return;
+      }
+      checkedCount++;
+
+      String location = fileStorageRegistry.getLocation(file);
+      List<SavedFile> otherFiles = new ArrayList<>(savedFiles.stream()
+          .filter(savedFile -> !savedFile.location().equals(location))
+          .toList());
+
+      // 목록을 만든 뒤에 옮겨졌을 수 있으므로 다시 확인한다.
+      boolean exists = otherFiles.size() < savedFiles.size();
+      if (!exists) {
+        throttle.acquire();
+        exists = fileStorageRegistry.forLocation(location).exists(location);
+      }
+
+      if (!exists && !otherFiles.isEmpty()) {
+        misplaced(file, otherFiles.remove(0));
+      } else if (!exists) {
+        missing(file, location);
+      }
+      for (SavedFile otherFile : otherFiles) {
+        orphan(otherFile);
+      }
+    }
+
+    private void orphan(SavedFile savedFile) {
+      if (savedFile.lastModifiedTime().isAfter(graceTime)) {
+        return;
+      }
+
+      log.warn("TB_FILE에 없는 저장 파일입니다. fileId={}, location={}", savedFile.fileId(),
+          savedFile.location());
+      record(ORPHAN);
+      if (repair) {
+        orphanFiles.add(FileDto.builder()
+            .fileId(savedFile.fileId())
+            .filePath(savedFile.getDirectory())
+            .build());
+        flushIfFull(orphanFiles);
+      }
+    }
+
+    private void missing(FileDto file, String location) throws IOException {
+      log.warn("저장 파일이 없습니다. fileId={}, location={}", file.getFileId(), location);
+      record(MISSING);
+      if (!repair) {
+        return;
+      }
+
+      Path tempFile = fileProperties.getTempFile(file.getServiceCode(), file.getFileId());
+      if (Files.exists(tempFile)) {
+        FileStorage fileStorage = fileStorageRegistry.forLocation(location);
+        fileStorage.put(tempFile, location);
+        log.info("임시 파일을 저장 위치로 옮겼습니다. fileId={}", file.getFileId());
+        return;
+      }
+
+      if (missingWriter == null) {
+        missingWriter = Files.newBufferedWriter(missingPath, StandardCharsets.UTF_8);
+      }
+      missingWriter.write(file.getFileId());
+      missingWriter.newLine();
+      missingCount++;
+    }
+
+    /**
+     * 저장 파일이 없는 TB_FILE이 너무 많으면 삭제하지 않는다.
+     */
+    private void deleteMissing() throws IOException {
+      if (missingWriter == null) {
+        return;
+      }
+      missingWriter.close();
+
+      if (missingCount > fileProperties.getReconcileMaxMissingFiles()
+          || missingCount * 100 > checkedCount * fileProperties.getReconcileMaxMissingPercent()) {
+        log.error("저장 파일이 없는 TB_FILE이 너무 많아 삭제하지 않습니다. 저장 폴더를 확인하세요. "
+            + "missingCount={}, checkedCount={}", missingCount, checkedCount);
+        return;
+      }
+
+      List<String> missingFileIds = new ArrayList<>();
+      try (BufferedReader reader = Files.newBufferedReader(missingPath, StandardCharsets.UTF_8)) {
+        String fileId;
+        while ((fileId = reader.readLine()) != null) {
+          missingFileIds.add(fileId);
+          if (missingFileIds.size() >= fileProperties.getBatchSize()) {
+            deleteByFileIds(missingFileIds);
+          }
+        }
+      }
+      deleteByFileIds(missingFileIds);
+    }
+
+    private void deleteByFileIds(List<String> fileIds) {
+      if (fileIds.isEmpty()) {
+        return;
+      }
+
+      fileMapper.deleteByFileIds(fileIds);
+      fileMetadataCache.evict(List.copyOf(fileIds));
+      fileIds.clear();
+    }
+
+    private void misplaced(FileDto file, SavedFile savedFile) {
+      log.warn("FILE_PATH와 다른 위치에 있는 저장 파일입니다. fileId={}, filePath={}, location={}",
+          file.getFileId(), file.getFilePath(), savedFile.location());
+      record(MISPLACED);
+      if (repair) {
+        misplacedFiles.add(FileDto.builder()
+            .fileId(file.getFileId())
+            .filePath(savedFile.getDirectory())
+            .build());
+        flushIfFull(misplacedFiles);
+      }
+    }
+
+    private void record(String type) {
+      counts.merge(type, 1L, Long::sum);
+      fileMetrics.recordReconcileMismatch(type, repair);
+    }
+
+    private void flushIfFull(List<?> list) {
+      if (list.size() >= fileProperties.getBatchSize()) {
+        flush();
+      }
+    }
+
+    private void flush() {
+      if (!orphanFiles.isEmpty()) {
+        fileDeleteService.enqueue(orphanFiles);
+        orphanFiles.clear();
+      }
+
+      if (!misplacedFiles.isEmpty()) {
+        fileMapper.updateFilePaths(misplacedFiles);
+        fileMetadataCache.evict(misplacedFiles.stream()
+            .map(FileDto::getFileId)
+            .toList());
+        misplacedFiles.clear();
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (missingWriter != null) {
+        missingWriter.close();
+      }
+    }
+
+  }
+
+}
@@ -1,6 +1,12 @@
 package com.spring.file.service;
 
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.image.ImageRenditionService;
+import com.spring.file.image.ImageResizeCache;
+import com.spring.file.image.ImageResizer;
 import com.spring.file.mapper.FileMapper;
+import com.spring.file.metrics.FileMetrics;
+import com.spring.file.model.FileBlobDto;
 import com.spring.file.model.FileCopiedDto;
 import com.spring.file.model.FileCopyByServiceRequestDto;
 import com.spring.file.model.FileCopyByServiceResponseDto;
@@ -9,156 +15,235 @@ import com.spring.file.model.FileDeleteByFileIdsResponseDto;
 import com.spring.file.model.FileDeleteByServiceRequestDto;
 import com.spring.file.model.FileDeleteByServiceResponseDto;
 import com.spring.file.model.FileDto;
+import com.spring.file.model.FileFindByServicePageRequestDto;
+import com.spring.file.model.FileFindByServicePageResponseDto;
 import com.spring.file.model.FileFindByServiceRequestDto;
 import com.spring.file.model.FileFindByServiceResponseDto;
+import com.spring.file.model.FileSaveDto;
 import com.spring.file.model.FileSaveRequestDto;
 import com.spring.file.model.FileSaveResponseDto;
 import com.spring.file.model.FileUploadRequestDto;
 import com.spring.file.model.FileUploadResponseDto;
 import com.spring.file.model.FileUploadedDto;
 import com.spring.file.properties.FileProperties;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.File;
+import com.spring.file.storage.FileStorage;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.util.DefaultUtils;
+import com.spring.file.util.FileIdUtils;
+import com.spring.file.util.PartitionUtils;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.attribute.BasicFileAttributes;
-import java.nio.file.attribute.FileTime;
-import java.time.Duration;
-import java.time.Instant;
+import java.security.DigestOutputStream;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
 import java.util.List;
-import java.util.Objects;
-import java.util.StringJoiner;
-import java.util.UUID;
-import javax.imageio.ImageIO;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
-import org.imgscalr.Scalr;
-import org.imgscalr.Scalr.Method;
-import org.imgscalr.Scalr.Mode;
-import org.jasypt.encryption.pbe.StandardPBEByteEncryptor;
+import org.apache.commons.io.function.IOConsumer;
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.core.io.ByteArrayResource;
 import org.springframework.core.io.Resource;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.ObjectUtils;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
 
 @Slf4j
 @RequiredArgsConstructor
 @Service
 public class FileService {
 
+  private static final int DEFAULT_PAGE_SIZE = 100;
+
+  private static final String CURSOR_SEPARATOR = "\u0000";
+
   private final FileProperties fileProperties;
-  private final StandardPBEByteEncryptor fileEncryptor;
+  private final FileCryptoService fileCryptoService;
   private final FileMapper fileMapper;
+  private final FileMetadataCache fileMetadataCache;
+  private final FileBlobService fileBlobService;
+  private final FileDeleteService fileDeleteService;
+  private final FileMoveService fileMoveService;
+  private final FileTransferService fileTransferService;
+  private final FileStorageRegistry fileStorageRegistry;
+  private final ImageResizeCache imageResizeCache;
+  private final ImageResizer imageResizer;
+  private final ImageRenditionService imageRenditionService;
+  private final FileMetrics fileMetrics;
 
   public FileUploadResponseDto upload(FileUploadRequestDto requestDto) throws Exception {
-    String tempPath = getServiceTempPath(requestDto.getServiceCode());
-    List<FileUploadedDto> fileUploadedList = new ArrayList<>();
-
-    for (MultipartFile multipartFile : requestDto.getFiles()) {
-      fileUploadedList.add(FileUploadedDto.builder()
-          .fileId(makeFile(tempPath, multipartFile))
-          .fileName(FilenameUtils.removeExtension(multipartFile.getOriginalFilename()))
-          .fileExtension(FilenameUtils.getExtension(multipartFile.getOriginalFilename()))
-          .fileSize(multipartFile.getSize())
-          .build());
-    }
+    return fileMetrics.record(FileMetrics.UPLOAD, requestDto.getServiceCode(), () -> {
+      List<FileUploadedDto> fileUploadedList = new ArrayList<>();
+
+      for (MultipartFile multipartFile : requestDto.getFiles()) {
+        fileUploadedList.add(FileUploadedDto.builder()
+            .fileId(getNewFileId())
+            .fileName(FilenameUtils.removeExtension(multipartFile.getOriginalFilename()))
+            .fileExtension(FilenameUtils.getExtension(multipartFile.getOriginalFilename()))
+            .fileSize(multipartFile.getSize())
+            .build());
+        fileMetrics.recordBytes(FileMetrics.UPLOAD, requestDto.getServiceCode(), FileMetrics.IN,
+            multipartFile.getSize());
+      }
 
-    return FileUploadResponseDto.builder()
-        .files(fileUploadedList)
-        .build();
+      // 파일별 암호화, 기록을 병렬로 처리하고, 하나라도 실패하면 이미 기록한 임시 파일을 모두 삭제한다.
+      List<Integer> indexes = IntStream.range(0, fileUploadedList.size())
+          .boxed()
+          .toList();
+      try {
+        fileTransferService.forEach(indexes, index -> makeFile(requestDto.getServiceCode(),
+            fileUploadedList.get(index).getFileId(), requestDto.getFiles().get(index)));
+      } catch (IOException | RuntimeException e) {
+        for (FileUploadedDto fileUploaded : fileUploadedList) {
+          deleteTempFile(requestDto.getServiceCode(), fileUploaded.getFileId());
+        }
+        throw e;
+      }
+
+      return FileUploadResponseDto.builder()
+          .files(fileUploadedList)
+          .build();
+    });
   }
 
   @Transactional
   public FileSaveResponseDto save(FileSaveRequestDto requestDto) throws IOException {
-    String tempPath = getServiceTempPath(requestDto.getServiceCode());
-    String savePath = getServiceSavePath(requestDto.getServiceCode());
+    return fileMetrics.record(FileMetrics.SAVE, requestDto.getServiceCode(), () -> {
+      FileStorage fileStorage = fileStorageRegistry.forService(requestDto.getServiceCode());
+
+      FileDto params = FileDto.builder()
+          .serviceCode(requestDto.getServiceCode())
+          .tableName(requestDto.getTableName())
+          .distinguishColumnValue(requestDto.getDistinguishColumnValue())
+          .build();
+      List<FileDto> savedFileList = fileMetrics.recordStage(FileMetrics.SAVE,
+          requestDto.getServiceCode(), FileMetrics.STAGE_DB, () -> fileMapper.findByService(params));
+
+      // target
+      Set<String> savedFileIds = savedFileList.stream()
+          .map(FileDto::getFileId)
+          .collect(Collectors.toSet());
+      Set<String> requestFileIds = requestDto.getFiles().stream()
+          .map(FileSaveDto::getFileId)
+          .collect(Collectors.toSet());
+
+      boolean contentAddressed = fileProperties.isContentAddressedService(
+          requestDto.getServiceCode());
+      List<FileDto> insertFileList = new ArrayList<>();
+      for (FileSaveDto file : requestDto.getFiles()) {
+        if (savedFileIds.contains(file.getFileId())) {
+          continue;
+        }
 
-    FileDto params = FileDto.builder()
-        .serviceCode(requestDto.getServiceCode())
-        .tableName(requestDto.getTableName())
-        .distinguishColumnValue(requestDto.getDistinguishColumnValue())
-        .build();
-    List<FileDto> savedFileList = fileMapper.findByService(params);
-
-    // target
-    List<FileDto> insertFileList = requestDto.getFiles().stream()
-        .filter(file -> savedFileList.stream()
-            .noneMatch(savedFile -> file.getFileId().equals(savedFile.getFileId()))
-        )
-        .map(file -> FileDto.builder()
+        String blobHash = contentAddressed
+            ? fileBlobService.readHash(
+                fileProperties.getTempFile(requestDto.getServiceCode(), file.getFileId()))
+                .orElse(null)
+            : null;
+        insertFileList.add(FileDto.builder()
             .fileId(file.getFileId())
-            .filePath(savePath)
+            .filePath(blobHash != null
+                ? fileBlobService.getBlobDirectory(fileStorage, blobHash)
+                : getServiceSavePath(fileStorage, requestDto.getServiceCode(),
+                    file.getFileId()))
             .fileName(file.getFileName())
             .fileExtension(file.getFileExtension())
             .fileSize(file.getFileSize())
             .serviceCode(requestDto.getServiceCode())
             .tableName(requestDto.getTableName())
             .distinguishColumnValue(requestDto.getDistinguishColumnValue())
-            .build())
-        .toList();
-    List<FileDto> deleteFileList = savedFileList.stream()
-        .filter(savedFile -> requestDto.getFiles().stream()
-            .noneMatch(file -> savedFile.getFileId().equals(file.getFileId()))
-        ).toList();
-    List<FileDto> maintainedList = savedFileList.stream()
-        .filter(savedFile -> requestDto.getFiles().stream()
-            .anyMatch(file -> savedFile.getFileId().equals(file.getFileId()))
-        ).toList();
-
-    // database
-    if (!ObjectUtils.isEmpty(insertFileList)) {
-      fileMapper.insertBulk(insertFileList);
-    }
-    if (!ObjectUtils.isEmpty(deleteFileList)) {
-      fileMapper.deleteByFileIds(deleteFileList.stream()
+            .blobHash(blobHash)
+            .build());
+      }
+      List<FileDto> deleteFileList = savedFileList.stream()
+          .filter(savedFile -> !requestFileIds.contains(savedFile.getFileId()))
+          .toList();
+      List<FileDto> maintainedList = savedFileList.stream()
+          .filter(savedFile -> requestFileIds.contains(savedFile.getFileId()))
+          .toList();
+
+      // database
+      List<FileBlobDto> unreferencedBlobList = fileMetrics.recordStage(FileMetrics.SAVE,
+          requestDto.getServiceCode(), FileMetrics.STAGE_DB, () -> {
+            fileBlobService.reference(requestDto.getServiceCode(), insertFileList);
+            insertBulk(insertFileList);
+            fileMoveService.enqueue(requestDto.getServiceCode(), insertFileList);
+            deleteByFileIds(deleteFileList.stream()
+                .map(FileDto::getFileId)
+                .toList());
+            return fileBlobService.release(deleteFileList);
+          });
+
+      // file
+      for (FileDto fileDto : insertFileList) {
+        if (fileDto.getBlobHash() == null
+            && !Files.exists(
+            fileProperties.getTempFile(requestDto.getServiceCode(), fileDto.getFileId()))) {
+          throw new FileNotFoundException(fileDto.getFileId());
+        }
+      }
+      // 옮기지 못한 파일은 이동 대기열(TB_FILE_MOVE)에 남아 백그라운드에서 다시 시도한다.
+      afterCommit(() -> {
+        int failedCount = fileMetrics.recordStage(FileMetrics.SAVE, requestDto.getServiceCode(),
+            FileMetrics.STAGE_MOVE,
+            () -> fileMoveService.move(requestDto.getServiceCode(), insertFileList));
+        if (failedCount > 0) {
+          log.warn("옮기지 못한 임시 파일이 있습니다. serviceCode={}, failedCount={}",
+              requestDto.getServiceCode(), failedCount);
+        }
+        fileBlobService.delete(unreferencedBlobList);
+      });
+      deleteFiles(deleteFileList);
+      fileMetadataCache.evict(Stream.concat(insertFileList.stream(), deleteFileList.stream())
           .map(FileDto::getFileId)
           .toList());
-    }
-
-    // file
-    for (FileDto fileDto : insertFileList) {
-      File tempFile = new File(tempPath, fileDto.getFileId());
-      File saveFile = new File(savePath, fileDto.getFileId());
-
-      FileUtils.moveFile(tempFile, saveFile);
-    }
-    deleteFiles(deleteFileList);
-
-    return FileSaveResponseDto.builder()
-        .insertedList(insertFileList)
-        .deletedList(deleteFileList)
-        .maintainedList(maintainedList)
-        .build();
+      imageRenditionService.generate(insertFileList);
+
+      return FileSaveResponseDto.builder()
+          .insertedList(insertFileList)
+          .deletedList(deleteFileList)
+          .maintainedList(maintainedList)
+          .build();
+    });
   }
 
   @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
   public FileDto findByFileId(String fileId) {
-    return fileMapper.findByFileId(fileId);
+    return fileMetadataCache.get(fileId, fileMapper::findByFileId);
   }
 
   @Transactional
   public FileDeleteByFileIdsResponseDto deleteByFileIds(FileDeleteByFileIdsRequestDto requestDto)
       throws IOException {
     int deletedCount = 0;
-    List<FileDto> fileDtoList = fileMapper.findByFileIds(requestDto.getFileIds());
+    List<FileDto> fileDtoList = findByFileIds(requestDto.getFileIds());
 
     if (!ObjectUtils.isEmpty(fileDtoList)) {
-      deletedCount = fileMapper.deleteByFileIds(requestDto.getFileIds());
+      deletedCount = deleteByFileIds(requestDto.getFileIds());
+      List<FileBlobDto> unreferencedBlobList = fileBlobService.release(fileDtoList);
       deleteFiles(fileDtoList);
+      afterCommit(() -> fileBlobService.delete(unreferencedBlobList));
+      fileMetadataCache.evict(requestDto.getFileIds());
     }
 
     return FileDeleteByFileIdsResponseDto.builder()
@@ -181,6 +266,54 @@ public class FileService {
         .build();
   }
 
+  /**
+   * IX_FILE_01 + FILE_ID 순서로 한 페이지씩 조회한다. nextCursor는 페이지 마지막 행의 키이므로 OFFSET과 달리 뒤 페이지도
+   * 인덱스에서 바로 찾는다.
+   */
+  @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
+  public FileFindByServicePageResponseDto findByServicePage(
+      FileFindByServicePageRequestDto requestDto) {
+    FileDto params = FileDto.builder()
+        .serviceCode(requestDto.getServiceCode())
+        .tableName(requestDto.getTableName())
+        .distinguishColumnValue(requestDto.getDistinguishColumnValue())
+        .build();
+    int size = DefaultUtils.getValue(requestDto.getSize(), DEFAULT_PAGE_SIZE);
+
+    // 다음 페이지가 있는지 알기 위해 한 건 더 조회한다.
+    List<FileDto> result = fileMapper.findByServiceAfter(params,
+        decodeCursor(requestDto.getCursor()), size + 1);
+    String nextCursor = null;
+    if (result.size() > size) {
+      result = result.subList(0, size);
+      nextCursor = encodeCursor(result.get(size - 1));
+    }
+
+    return FileFindByServicePageResponseDto.builder()
+        .files(result)
+        .nextCursor(nextCursor)
+        .build();
+  }
+
+  /**
+   * findByService 결과를 한 건씩 consumer에 넘긴다. 결과 크기와 관계없이 fetch size만큼만 메모리에 둔다.
+   */
+  @Transactional(readOnly = true)
+  public void streamByService(FileFindByServiceRequestDto requestDto,
+      IOConsumer<FileDto> consumer) throws IOException {
+    FileDto params = FileDto.builder()
+        .serviceCode(requestDto.getServiceCode())
+        .tableName(requestDto.getTableName())
+        .distinguishColumnValue(requestDto.getDistinguishColumnValue())
+        .build();
+
+    try (Cursor<FileDto> cursor = fileMapper.streamByService(params)) {
+      for (FileDto fileDto : cursor) {
+        consumer.accept(fileDto);
+      }
+    }
+  }
+
   @Transactional
   public FileDeleteByServiceResponseDto deleteByService(FileDeleteByServiceRequestDto requestDto)
       throws IOException {
@@ -195,7 +328,12 @@ public class FileService {
 
     if (!ObjectUtils.isEmpty(fileDtoList)) {
       deletedCount = fileMapper.deleteByService(params);
+      List<FileBlobDto> unreferencedBlobList = fileBlobService.release(fileDtoList);
       deleteFiles(fileDtoList);
+      afterCommit(() -> fileBlobService.delete(unreferencedBlobList));
+      fileMetadataCache.evict(fileDtoList.stream()
+          .map(FileDto::getFileId)
+          .toList());
     }
 
     return FileDeleteByServiceResponseDto.builder()
@@ -203,159 +341,248 @@ public class FileService {
         .build();
   }
 
-  @Transactional
+  @Transactional(readOnly = true, propagation = Propagation.SUPPORTS)
   public FileCopyByServiceResponseDto copyByService(FileCopyByServiceRequestDto requestDto)
       throws IOException {
-    String tempPath = getServiceTempPath(requestDto.getServiceCode());
+    return fileMetrics.record(FileMetrics.COPY, requestDto.getServiceCode(), () -> {
+      FileDto params = FileDto.builder()
+          .serviceCode(requestDto.getServiceCode())
+          .tableName(requestDto.getTableName())
+          .distinguishColumnValue(requestDto.getDistinguishColumnValue())
+          .build();
+      List<FileDto> savedFileList = fileMapper.findByService(params);
+
+      List<FileCopiedDto> copidFileList = new ArrayList<>();
+      Map<FileCopiedDto, FileDto> copyFileMap = new HashMap<>();
+      for (FileDto savedFile : savedFileList) {
+        FileCopiedDto copiedFile = FileCopiedDto.builder()
+            .fileId(getNewFileId())
+            .fileName(savedFile.getFileName())
+            .fileExtension(savedFile.getFileExtension())
+            .fileSize(savedFile.getFileSize())
+            .build();
+        copidFileList.add(copiedFile);
+        copyFileMap.put(copiedFile, savedFile);
+      }
 
-    FileDto params = FileDto.builder()
-        .serviceCode(requestDto.getServiceCode())
-        .tableName(requestDto.getTableName())
-        .distinguishColumnValue(requestDto.getDistinguishColumnValue())
-        .build();
-    List<FileDto> savedFileList = fileMapper.findByService(params);
-
-    List<FileCopiedDto> copidFileList = new ArrayList<>();
-    for (FileDto savedFile : savedFileList) {
-      String fileId = getNewFileId();
-      File srcFile = new File(savedFile.getFilePath(), savedFile.getFileId());
-      File destFile = new File(tempPath, fileId);
-
-      FileUtils.copyFile(srcFile, destFile);
-      copidFileList.add(FileCopiedDto.builder()
-          .fileId(fileId)
-          .fileName(savedFile.getFileName())
-          .fileExtension(savedFile.getFileExtension())
-          .fileSize(savedFile.getFileSize())
-          .build());
+      // 블롭으로 저장된 파일은 내용을 복사하지 않고 해시 파일만 만들어 저장 시 참조수만 증가시킨다.
+      boolean contentAddressed = fileProperties.isContentAddressedService(
+          requestDto.getServiceCode());
+      try {
+        fileTransferService.forEach(copidFileList, copiedFile -> {
+          FileDto savedFile = copyFileMap.get(copiedFile);
+          Path tempFile = fileProperties.getTempFile(requestDto.getServiceCode(),
+              copiedFile.getFileId());
+          Files.createDirectories(tempFile.getParent());
+          if (contentAddressed && savedFile.getBlobHash() != null) {
+            fileBlobService.writeHash(tempFile, savedFile.getBlobHash());
+          } else {
+            String location = fileStorageRegistry.getLocation(savedFile);
+            fileStorageRegistry.forLocation(location).download(location, tempFile);
+            fileMetrics.recordBytes(FileMetrics.COPY, requestDto.getServiceCode(),
+                FileMetrics.IN, savedFile.getFileSize());
+          }
+        });
+      } catch (IOException e) {
+        for (FileCopiedDto copiedFile : copidFileList) {
+          deleteTempFile(requestDto.getServiceCode(), copiedFile.getFileId());
+        }
+        throw e;
+      }
+
+      return FileCopyByServiceResponseDto.builder()
+          .copiedList(copidFileList)
+          .build();
+    });
+  }
+
+  /**
+   * 트랜잭션 안에서 호출하면 커밋 후에 실행한다. 파일 작업이 트랜잭션을 붙잡고 있지 않도록 한다. 이미 커밋되었으므로 실패해도
+   * 예외를 던지지 않고 기록만 한다.
+   */
+  private void afterCommit(IORunnable runnable) throws IOException {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      runnable.run();
+      return;
     }
 
-    return FileCopyByServiceResponseDto.builder()
-        .copiedList(copidFileList)
-        .build();
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        try {
+          runnable.run();
+        } catch (IOException | RuntimeException e) {
+          log.warn("커밋 후 파일 작업에 실패했습니다.", e);
+        }
+      }
+    });
   }
 
-  private String getServiceTempPath(String serviceCode) {
-    final String DELIMITER = "/";
-    StringJoiner pathJoiner = new StringJoiner(DELIMITER);
-    return pathJoiner
-        .add(fileProperties.getTempPath())
-        .add(serviceCode)
-        .toString()
-        .replace(DELIMITER, File.separator);
+  private void insertBulk(List<FileDto> fileDtoList) {
+    for (List<FileDto> partition : PartitionUtils.partition(fileDtoList,
+        fileProperties.getBatchSize())) {
+      fileMapper.insertBulk(partition);
+    }
   }
 
-  private String getServiceSavePath(String serviceCode) {
-    final String DELIMITER = "/";
-    String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
-    StringJoiner pathJoiner = new StringJoiner(DELIMITER);
-    return pathJoiner
-        .add(fileProperties.getSavePath())
-        .add(serviceCode)
-        .add(date)
-        .toString()
-        .replace(DELIMITER, File.separator);
+  private List<FileDto> findByFileIds(List<String> fileIds) {
+    List<FileDto> fileDtoList = new ArrayList<>();
+    for (List<String> partition : PartitionUtils.partition(fileIds, fileProperties.getBatchSize())) {
+      fileDtoList.addAll(fileMapper.findByFileIds(partition));
+    }
+
+    return fileDtoList;
   }
 
-  private String makeFile(String uploadPath, MultipartFile multipartFile) throws IOException {
-    String fileId = getNewFileId();
-    byte[] encrypted = fileEncryptor.encrypt(multipartFile.getBytes());
-    Path path = Paths.get(uploadPath, fileId);
-    Files.createDirectories(path.getParent());
-    Files.write(path, encrypted);
+  private int deleteByFileIds(List<String> fileIds) {
+    int deletedCount = 0;
+    for (List<String> partition : PartitionUtils.partition(fileIds, fileProperties.getBatchSize())) {
+      deletedCount += fileMapper.deleteByFileIds(partition);
+    }
 
-    return fileId;
+    return deletedCount;
   }
 
-  private String getNewFileId() {
-    return UUID.randomUUID().toString();
+  private String encodeCursor(FileDto last) {
+    String key = String.join(CURSOR_SEPARATOR, last.getTableName(),
+        last.getDistinguishColumnValue(), last.getFileId());
+    return Base64.getUrlEncoder().withoutPadding()
+        .encodeToString(key.getBytes(StandardCharsets.UTF_8));
   }
 
-  public Resource getResource(FileDto fileDto) throws Exception {
-    Path path = Paths.get(fileDto.getFilePath(), fileDto.getFileId());
-    byte[] decrypted = fileEncryptor.decrypt(Files.readAllBytes(path));
-    Resource resource = new ByteArrayResource(decrypted);
-
-    if (!resource.exists()) {
-      throw new FileNotFoundException();
-    } else if (!resource.isReadable()) {
-      throw new Exception("파일을 읽을 수 없습니다.");
+  private FileDto decodeCursor(String cursor) {
+    if (ObjectUtils.isEmpty(cursor)) {
+      return null;
     }
 
-    return resource;
+    String[] values;
+    try {
+      values = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+          .split(CURSOR_SEPARATOR, -1);
+    } catch (IllegalArgumentException e) {
+      values = new String[0];
+    }
+    if (values.length != 3) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "cursor가 올바르지 않습니다. cursor=" + cursor);
+    }
+
+    return FileDto.builder()
+        .tableName(values[0])
+        .distinguishColumnValue(values[1])
+        .fileId(values[2])
+        .build();
   }
 
-  public Resource getResizeResource(FileDto fileDto, int resizeWidth, int resizeHeight)
-      throws Exception {
-    Path path = Paths.get(fileDto.getFilePath(), fileDto.getFileId());
-    byte[] decrypted = fileEncryptor.decrypt(Files.readAllBytes(path));
-    BufferedImage originalImage = ImageIO.read(new ByteArrayInputStream(decrypted));
-    Method scalingMethod = Method.AUTOMATIC;
-    // {@link Mode.AUTOMATIC} : width, height를 참고하여 가장 적합한 크기로 이미지를 resize한다.
-    // {@link Mode.FIT_EXACT} : width, height를 기준으로 이미지를 resize한다.
-    // {@link Mode.FIT_TO_WIDTH} : width를 기준으로 이미지를 resize한다.
-    // {@link Mode.FIT_TO_HEIGHT} : height를 기준으로 이미지를 resize한다.
-    Mode resizeMode = Mode.AUTOMATIC;
-    BufferedImage resizedImage = Scalr.resize(originalImage, scalingMethod, resizeMode, resizeWidth,
-        resizeHeight);
-
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
-    ImageIO.write(resizedImage, fileDto.getFileExtension(), baos);
-
-    return new ByteArrayResource(baos.toByteArray());
+  String getServiceSavePath(FileStorage fileStorage, String serviceCode, String fileId) {
+    String date = LocalDate.now().format(DateTimeFormatter.ofPattern("yyyy/MM/dd"));
+    String datePath = fileStorage.resolve(fileStorage.getBaseLocation(),
+        fileProperties.getSaveFolder(), serviceCode, date);
+
+    return fileStorage.resolve(datePath, fileProperties.getShardNames(fileId));
   }
 
-  private void deleteFiles(List<FileDto> fileDtoList) throws IOException {
-    for (FileDto fileDto : fileDtoList) {
-      File file = FileUtils.getFile(fileDto.getFilePath(), fileDto.getFileId());
+  private void makeFile(String serviceCode, String fileId, MultipartFile multipartFile)
+      throws IOException {
+    fileMetrics.recordStage(FileMetrics.UPLOAD, serviceCode, FileMetrics.STAGE_ENCRYPT, () -> {
+      try (InputStream in = multipartFile.getInputStream();
+          OutputStream out = openTempFile(serviceCode, fileId)) {
+        in.transferTo(out);
+      }
+    });
+  }
 
-      deleteFile(file);
+  /**
+   * 업로드 임시 파일을 기록하는 스트림. 평문을 써 넣으면 서비스 설정에 따라 암호화하고, 콘텐츠 주소 저장
+   * 서비스는 닫을 때 해시 파일을 함께 기록한다.
+   */
+  public OutputStream openTempFile(String serviceCode, String fileId) throws IOException {
+    Path path = fileProperties.getTempFile(serviceCode, fileId);
+    OutputStream out = fileCryptoService.newOutputStream(path,
+        fileProperties.isPlainService(serviceCode));
+    if (!fileProperties.isContentAddressedService(serviceCode)) {
+      return out;
     }
+
+    return new DigestOutputStream(out, FileBlobService.newDigest()) {
+      @Override
+      public void close() throws IOException {
+        super.close();
+        fileBlobService.writeHash(path, getMessageDigest());
+      }
+    };
   }
 
-  private void deleteFile(File file) throws IOException {
-    FileUtils.delete(file);
-    deleteDirectory(file.getParentFile());
+  public void deleteTempFile(String serviceCode, String fileId) {
+    Path tempFile = fileProperties.getTempFile(serviceCode, fileId);
+    FileUtils.deleteQuietly(tempFile.toFile());
+    fileBlobService.deleteHash(tempFile);
   }
 
-  private void deleteDirectory(File directory) throws IOException {
-    if (!ObjectUtils.isEmpty(directory.list())) {
-      return;
-    }
+  public String getNewFileId() {
+    return FileIdUtils.newFileId();
+  }
 
-    FileUtils.deleteDirectory(directory);
+  public Resource getResource(FileDto fileDto) throws Exception {
+    return fileMetrics.record(FileMetrics.DOWNLOAD, fileDto.getServiceCode(), () -> {
+      Resource resource = fileCryptoService.getResource(fileStorageRegistry.getLocation(fileDto));
 
-    File parentDirectory = directory.getParentFile();
-    if (!parentDirectory.toPath().endsWith(fileProperties.getBasePath())) {
-      deleteDirectory(parentDirectory);
-    }
+      if (!resource.exists()) {
+        throw new FileNotFoundException();
+      } else if (!resource.isReadable()) {
+        throw new Exception("파일을 읽을 수 없습니다.");
+      }
+
+      return resource;
+    });
   }
 
-  @Scheduled(cron = "0 0 4 * * *")
-  public void deleteTempFile() throws IOException {
-    File tempDirectory = new File(fileProperties.getTempPath());
-    if (!tempDirectory.exists()) {
-      return;
+  /**
+   * 요청한 크기 그대로 만든다. resizeMaxSize보다 크면 400으로 응답한다.
+   */
+  public Resource getResizeResource(FileDto fileDto, int width, int height)
+      throws Exception {
+    if (width > fileProperties.getResizeMaxSize() || height > fileProperties.getResizeMaxSize()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "resize 크기는 " + fileProperties.getResizeMaxSize() + " 이하여야 합니다.");
     }
 
-    Instant currentTime = Instant.now();
+    return fileMetrics.record(FileMetrics.RESIZE, fileDto.getServiceCode(), () -> {
+      byte[] resized = imageResizeCache.get(fileDto, width, height,
+          () -> resize(fileDto, width, height));
+      fileMetrics.recordBytes(FileMetrics.RESIZE, fileDto.getServiceCode(), FileMetrics.OUT,
+          resized.length);
 
-    for (File serviceDirectory : Objects.requireNonNull(tempDirectory.listFiles())) {
-      if (!serviceDirectory.exists()) {
-        break;
-      }
+      return new ByteArrayResource(resized);
+    });
+  }
 
-      for (File file : Objects.requireNonNull(serviceDirectory.listFiles())) {
-        BasicFileAttributes fileAttributes = Files.readAttributes(file.toPath(),
-            BasicFileAttributes.class);
-        FileTime creationTime = fileAttributes.creationTime();
-        Duration duration = Duration.between(creationTime.toInstant(), currentTime);
+  private byte[] resize(FileDto fileDto, int resizeWidth, int resizeHeight) throws IOException {
+    return fileMetrics.recordStage(FileMetrics.RESIZE, fileDto.getServiceCode(),
+        FileMetrics.STAGE_RESIZE, () -> {
+          try (InputStream in = fileCryptoService.decrypt(
+              fileStorageRegistry.getLocation(fileDto))) {
+            return imageResizer.resize(in, fileDto.getFileExtension(), resizeWidth, resizeHeight);
+          }
+        });
+  }
 
-        if (duration.toDays() > fileProperties.getTempFileMaxStorageDays()) {
-          deleteFile(file);
-        }
-      }
+  /**
+   * 저장 파일은 삭제 대기열에 넣어 커밋 후 FileDeleteService에서 삭제한다. 블롭은 참조수가 0이 된 경우에만 커밋 후
+   * FileBlobService에서 삭제한다.
+   */
+  private void deleteFiles(List<FileDto> fileDtoList) throws IOException {
+    fileDeleteService.enqueue(fileDtoList);
+    for (FileDto fileDto : fileDtoList) {
+      imageResizeCache.evict(fileDto.getFileId());
     }
   }
 
+  @FunctionalInterface
+  private interface IORunnable {
+
+    void run() throws IOException;
+
+  }
+
 }
@@ -0,0 +1,172 @@
+package com.spring.file.service;
+
+import com.spring.file.mapper.FileMapper;
+import com.spring.file.model.FileDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorage;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.util.FileIdUtils;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * 기존 저장 파일을 현재 shardDepth의 폴더({@link FileProperties#getShardNames(String)})로 옮기고 FILE_PATH를 한 번에
+ * 변경한다(file.shard-migration-enabled). TB_FILE을 FILE_ID 순서로 batchSize건씩 읽으므로 중간에 멈춰도 다시 실행하면
+ * 옮기지 않은 파일만 처리한다. 서비스 중에도 실행할 수 있도록 파일을 새 위치로 복사하고, FILE_PATH를 변경하여 메타데이터 캐시를
+ * 비운 뒤에 이전 위치의 파일을 삭제한다. 그동안 TB_FILE이 가리키는 파일은 항상 있다. 복사한 뒤 멈춘 파일은 다음 실행에서 다시
+ * 복사하고, 이전 위치가 없으면 새 위치를 확인하여 FILE_PATH만 변경한다. 중복 제거된(BLOB_HASH) 파일은 이미 해시로 폴더가
+ * 나뉘어 있으므로 옮기지 않는다.
+ */
+@Slf4j
+@ConditionalOnProperty(prefix = "file", name = "shard-migration-enabled", havingValue = "true")
+@Service
+public class FileShardMigrationService {
+
+  private static final int MAX_SHARD_DEPTH = 4;
+
+  private final FileProperties fileProperties;
+  private final FileMapper fileMapper;
+  private final FileStorageRegistry fileStorageRegistry;
+  private final FileMetadataCache fileMetadataCache;
+  private final TaskExecutor fileMigrationExecutor;
+
+  public FileShardMigrationService(FileProperties fileProperties, FileMapper fileMapper,
+      FileStorageRegistry fileStorageRegistry, FileMetadataCache fileMetadataCache,
+      @Qualifier("fileMigrationExecutor") TaskExecutor fileMigrationExecutor) {
+    this.fileProperties = fileProperties;
+    this.fileMapper = fileMapper;
+    this.fileStorageRegistry = fileStorageRegistry;
+    this.fileMetadataCache = fileMetadataCache;
+    this.fileMigrationExecutor = fileMigrationExecutor;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    fileMigrationExecutor.execute(() -> {
+      try {
+        migrate();
+      } catch (Exception e) {
+        log.warn("저장 폴더 변환에 실패했습니다.", e);
+      }
+    });
+  }
+
+  public void migrate() {
+    String lastFileId = null;
+    long migratedCount = 0;
+
+    while (true) {
+      List<FileDto> files = fileMapper.findByFileIdAfter(lastFileId,
+          fileProperties.getBatchSize());
+      if (files.isEmpty()) {
+        break;
+      }
+      lastFileId = files.get(files.size() - 1).getFileId();
+
+      List<FileDto> movedFiles = new ArrayList<>();
+      Map<FileStorage, List<String>> sourceLocations = new LinkedHashMap<>();
+      for (FileDto file : files) {
+        if (file.getBlobHash() != null) {
+          continue;
+        }
+
+        String location = fileStorageRegistry.getLocation(file);
+        FileStorage fileStorage = fileStorageRegistry.forLocation(location);
+        try {
+          FileDto movedFile = copy(fileStorage, location, file);
+          if (movedFile != null) {
+            movedFiles.add(movedFile);
+            sourceLocations.computeIfAbsent(fileStorage, key -> new ArrayList<>()).add(location);
+          }
+        } catch (IOException e) {
+          log.warn("저장 파일을 복사할 수 없습니다. fileId={}", file.getFileId(), e);
+        }
+      }
+
+      if (!movedFiles.isEmpty()) {
+        fileMapper.updateFilePaths(movedFiles);
+        fileMetadataCache.evict(movedFiles.stream().map(FileDto::getFileId).toList());
+        migratedCount += movedFiles.size();
+      }
+      for (Map.Entry<FileStorage, List<String>> entry : sourceLocations.entrySet()) {
+        delete(entry.getKey(), entry.getValue());
+      }
+      log.info("저장 폴더 변환 중입니다. lastFileId={}, migratedCount={}", lastFileId,
+          migratedCount);
+    }
+
+    log.info("저장 폴더 변환을 완료했습니다. migratedCount={}", migratedCount);
+  }
+
+  /**
+   * 새 위치로 복사한다. 이전 위치의 파일은 FILE_PATH를 변경한 뒤 삭제한다. 옮길 필요가 없거나 파일이 없으면 null
+   */
+  private FileDto copy(FileStorage fileStorage, String location, FileDto file)
+      throws IOException {
+    String filePath = fileStorage.resolve(getUnshardedPath(fileStorage, file),
+        fileProperties.getShardNames(file.getFileId()));
+    if (filePath.equals(file.getFilePath())) {
+      return null;
+    }
+
+    String targetLocation = fileStorage.resolve(filePath, file.getFileId());
+    if (fileStorage.exists(location)) {
+      // 이전 실행에서 복사하다 멈춘 파일일 수 있으므로 다시 복사한다.
+      if (fileStorage.exists(targetLocation)) {
+        fileStorage.delete(targetLocation);
+      }
+      fileStorage.copy(location, targetLocation);
+    } else if (!fileStorage.exists(targetLocation)) {
+      log.warn("저장 파일이 없습니다. fileId={}, location={}", file.getFileId(), location);
+      return null;
+    }
+
+    return FileDto.builder()
+        .fileId(file.getFileId())
+        .filePath(filePath)
+        .build();
+  }
+
+  private void delete(FileStorage fileStorage, List<String> locations) {
+    for (String location : locations) {
+      try {
+        fileStorage.delete(location);
+      } catch (IOException e) {
+        log.warn("이전 위치의 저장 파일을 삭제할 수 없습니다. location={}", location, e);
+      }
+    }
+
+    try {
+      fileStorage.deleteEmptyDirectories(locations);
+    } catch (IOException e) {
+      log.warn("빈 폴더를 삭제할 수 없습니다. storage={}", fileStorage.getName(), e);
+    }
+  }
+
+  /**
+   * FILE_PATH에서 이전 shardDepth로 나눈 폴더를 뺀 경로
+   */
+  private String getUnshardedPath(FileStorage fileStorage, FileDto file) {
+    String filePath = file.getFilePath();
+    for (int depth = MAX_SHARD_DEPTH; depth > 0; depth--) {
+      String shardPath = fileStorage.resolve("",
+          FileIdUtils.getShardNames(file.getFileId(), depth));
+      if (filePath.endsWith(shardPath)) {
+        return filePath.substring(0, filePath.length() - shardPath.length());
+      }
+    }
+
+    return filePath;
+  }
+
+}
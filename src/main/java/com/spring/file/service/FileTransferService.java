@@ -0,0 +1,49 @@
+package com.spring.file.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import org.apache.commons.io.function.IOConsumer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+
+/**
+ * 여러 파일의 이동, 복사를 fileIoExecutor에서 병렬로 처리한다.
+ */
+@Component
+public class FileTransferService {
+
+  private final TaskExecutor fileIoExecutor;
+
+  public FileTransferService(@Qualifier("fileIoExecutor") TaskExecutor fileIoExecutor) {
+    this.fileIoExecutor = fileIoExecutor;
+  }
+
+  /**
+   * 모든 작업이 끝날 때까지 기다리며, 실패한 작업이 있으면 첫 번째 예외를 던진다.
+   */
+  public <T> void forEach(Collection<T> items, IOConsumer<T> task) throws IOException {
+    CompletableFuture<?>[] futures = items.stream()
+        .map(item -> CompletableFuture.runAsync(() -> {
+          try {
+            task.accept(item);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }, fileIoExecutor))
+        .toArray(CompletableFuture[]::new);
+
+    try {
+      CompletableFuture.allOf(futures).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException cause) {
+        throw cause.getCause();
+      }
+      throw e;
+    }
+  }
+
+}
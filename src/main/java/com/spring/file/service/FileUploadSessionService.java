@@ -0,0 +1,265 @@
+package com.spring.file.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.metrics.FileMetrics;
+import com.spring.file.model.FileUploadSessionCreateRequestDto;
+import com.spring.file.model.FileUploadSessionDto;
+import com.spring.file.model.FileUploadedDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.util.FileIdUtils;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 이어 올리기(resumable upload). 세션을 만들면 최종 크기의 임시 파일을 만들고, 청크는 순서와 관계없이(병렬로) 받아 정해진 위치에
+ * 바로 암호화하여 기록한다. 완료하면 일반 업로드와 같은 임시 파일이 되어 save에서 사용할 수 있다.
+ * <p>
+ * 세션 정보는 임시 폴더의 {fileId}.session, 받은 청크는 청크당 1바이트인 {fileId}.chunks에 기록하므로 서버를 재시작해도 이어서
+ * 올릴 수 있다. 완료하지 않은 세션은 임시 파일과 함께 정리된다.
+ */
+@RequiredArgsConstructor
+@Service
+public class FileUploadSessionService {
+
+  private static final String DATA_SUFFIX = ".uploading";
+  private static final String SESSION_SUFFIX = ".session";
+  private static final String CHUNKS_SUFFIX = ".chunks";
+  private static final byte RECEIVED = 1;
+
+  private final FileProperties fileProperties;
+  private final FileCryptoService fileCryptoService;
+  private final FileBlobService fileBlobService;
+  private final ObjectMapper objectMapper;
+  private final FileMetrics fileMetrics;
+
+  /**
+   * 사용 중인 세션별 잠금. 잠금을 잡은 요청 수를 세어 마지막 요청이 놓을 때 지운다.
+   */
+  private final Map<String, SessionLock> sessionLocks = new ConcurrentHashMap<>();
+
+  /**
+   * 세션 파일을 만든다. 만드는 중에 실패하면 만든 파일을 지운다.
+   */
+  public FileUploadSessionDto create(FileUploadSessionCreateRequestDto requestDto)
+      throws IOException {
+    if (requestDto.getFileSize() > fileProperties.getUploadMaxFileSize()) {
+      throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+          "파일 크기가 최대 크기를 넘습니다. fileSize=" + requestDto.getFileSize() + ", max="
+              + fileProperties.getUploadMaxFileSize());
+    }
+
+    String serviceCode = requestDto.getServiceCode();
+    String fileId = FileIdUtils.newFileId();
+    try {
+      return create(requestDto, serviceCode, fileId);
+    } catch (IOException | RuntimeException e) {
+      for (String suffix : new String[]{DATA_SUFFIX, CHUNKS_SUFFIX, SESSION_SUFFIX}) {
+        Files.deleteIfExists(getPath(serviceCode, fileId, suffix));
+      }
+      throw e;
+    }
+  }
+
+  public FileUploadSessionDto find(String serviceCode, String fileId) throws IOException {
+    return readSession(serviceCode, fileId).toBuilder()
+        .receivedChunks(readReceivedChunks(serviceCode, fileId))
+        .build();
+  }
+
+  /**
+   * 청크를 기록한 뒤 받은 청크로 표시한다. 같은 청크를 다시 올리면 덮어쓴다. 청크끼리는 동시에 기록하지만 complete와는 겹치지
+   * 않는다.
+   */
+  public void writeChunk(String serviceCode, String fileId, int index, InputStream in)
+      throws IOException {
+    Lock lock = acquireLock(fileId).readLock();
+    lock.lock();
+    try {
+      writeChunk(serviceCode, fileId, index, in, readSession(serviceCode, fileId));
+    } finally {
+      lock.unlock();
+      releaseLock(fileId);
+    }
+  }
+
+  /**
+   * 모든 청크를 받았으면 임시 파일({fileId})로 바꾸고 세션을 정리한다. 기록 중인 청크가 끝난 뒤 확인하며, 완료한 뒤 들어온
+   * 청크는 세션이 없으므로 거절한다.
+   */
+  public FileUploadedDto complete(String serviceCode, String fileId) throws IOException {
+    Lock lock = acquireLock(fileId).writeLock();
+    lock.lock();
+    try {
+      return complete(serviceCode, fileId, readSession(serviceCode, fileId));
+    } finally {
+      lock.unlock();
+      releaseLock(fileId);
+    }
+  }
+
+  private FileUploadSessionDto create(FileUploadSessionCreateRequestDto requestDto,
+      String serviceCode, String fileId) throws IOException {
+    boolean plain = fileProperties.isPlainService(serviceCode);
+
+    int unit = fileCryptoService.createChunked(getPath(serviceCode, fileId, DATA_SUFFIX), plain,
+        requestDto.getFileSize());
+    int chunkSize = (fileProperties.getUploadChunkSize() + unit - 1) / unit * unit;
+    int chunkCount = Math.toIntExact((requestDto.getFileSize() + chunkSize - 1) / chunkSize);
+
+    try (FileChannel channel = FileChannel.open(getPath(serviceCode, fileId, CHUNKS_SUFFIX),
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.allocate(chunkCount));
+    }
+
+    FileUploadSessionDto session = FileUploadSessionDto.builder()
+        .fileId(fileId)
+        .serviceCode(serviceCode)
+        .fileName(FilenameUtils.removeExtension(requestDto.getOriginalFilename()))
+        .fileExtension(FilenameUtils.getExtension(requestDto.getOriginalFilename()))
+        .fileSize(requestDto.getFileSize())
+        .chunkSize(chunkSize)
+        .chunkCount(chunkCount)
+        .receivedChunks(List.of())
+        .build();
+    try (OutputStream out = Files.newOutputStream(getPath(serviceCode, fileId, SESSION_SUFFIX))) {
+      objectMapper.writeValue(out, session);
+    }
+
+    return session;
+  }
+
+  private void writeChunk(String serviceCode, String fileId, int index, InputStream in,
+      FileUploadSessionDto session) throws IOException {
+    if (index < 0 || index >= session.getChunkCount()) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "청크 번호가 올바르지 않습니다. index=" + index);
+    }
+
+    long offset = (long) index * session.getChunkSize();
+    long length = Math.min(session.getChunkSize(), session.getFileSize() - offset);
+    long written = fileMetrics.recordStage(FileMetrics.UPLOAD, serviceCode,
+        FileMetrics.STAGE_ENCRYPT, () -> fileCryptoService.writeChunk(
+            getPath(serviceCode, fileId, DATA_SUFFIX), offset, new BoundedInputStream(in, length)));
+    fileMetrics.recordBytes(FileMetrics.UPLOAD, serviceCode, FileMetrics.IN, written);
+    if (written != length || in.read() >= 0) {
+      throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+          "청크 크기가 올바르지 않습니다. index=" + index + ", expected=" + length);
+    }
+
+    try (FileChannel channel = FileChannel.open(getPath(serviceCode, fileId, CHUNKS_SUFFIX),
+        StandardOpenOption.WRITE)) {
+      channel.write(ByteBuffer.wrap(new byte[]{RECEIVED}), index);
+      channel.force(false);
+    }
+  }
+
+  private FileUploadedDto complete(String serviceCode, String fileId,
+      FileUploadSessionDto session) throws IOException {
+    int receivedCount = readReceivedChunks(serviceCode, fileId).size();
+    if (receivedCount < session.getChunkCount()) {
+      throw new ResponseStatusException(HttpStatus.CONFLICT,
+          "받지 않은 청크가 있습니다. received=" + receivedCount + ", chunkCount="
+              + session.getChunkCount());
+    }
+
+    Path dataPath = getPath(serviceCode, fileId, DATA_SUFFIX);
+    Path tempFile = fileProperties.getTempFile(serviceCode, fileId);
+    if (fileProperties.isContentAddressedService(serviceCode)) {
+      MessageDigest digest = FileBlobService.newDigest();
+      try (InputStream in = new DigestInputStream(fileCryptoService.decrypt(dataPath), digest)) {
+        in.transferTo(OutputStream.nullOutputStream());
+      }
+      fileBlobService.writeHash(tempFile, digest);
+    }
+
+    Files.move(dataPath, tempFile, StandardCopyOption.ATOMIC_MOVE);
+    Files.deleteIfExists(getPath(serviceCode, fileId, CHUNKS_SUFFIX));
+    Files.deleteIfExists(getPath(serviceCode, fileId, SESSION_SUFFIX));
+
+    return FileUploadedDto.builder()
+        .fileId(fileId)
+        .fileName(session.getFileName())
+        .fileExtension(session.getFileExtension())
+        .fileSize(session.getFileSize())
+        .build();
+  }
+
+  private FileUploadSessionDto readSession(String serviceCode, String fileId) throws IOException {
+    Path sessionPath = getPath(serviceCode, fileId, SESSION_SUFFIX);
+    if (!Files.exists(sessionPath)) {
+      throw new ResponseStatusException(HttpStatus.NOT_FOUND,
+          "업로드 세션을 찾을 수 없습니다. fileId=" + fileId);
+    }
+
+    try (InputStream in = Files.newInputStream(sessionPath)) {
+      return objectMapper.readValue(in, FileUploadSessionDto.class);
+    }
+  }
+
+  private List<Integer> readReceivedChunks(String serviceCode, String fileId) throws IOException {
+    byte[] chunks = Files.readAllBytes(getPath(serviceCode, fileId, CHUNKS_SUFFIX));
+    List<Integer> receivedChunks = new ArrayList<>();
+    for (int i = 0; i < chunks.length; i++) {
+      if (chunks[i] == RECEIVED) {
+        receivedChunks.add(i);
+      }
+    }
+
+    return receivedChunks;
+  }
+
+  private Path getPath(String serviceCode, String fileId, String suffix) {
+    return fileProperties.getTempFile(serviceCode, fileId).resolveSibling(fileId + suffix);
+  }
+
+  /**
+   * 세션 잠금을 찾거나 만들고 잡은 요청 수를 늘린다. 반드시 {@link #releaseLock}으로 놓는다.
+   */
+  private ReadWriteLock acquireLock(String fileId) {
+    return sessionLocks.compute(fileId, (key, sessionLock) -> {
+      SessionLock acquired = sessionLock != null ? sessionLock : new SessionLock();
+      acquired.holders++;
+      return acquired;
+    }).readWriteLock;
+  }
+
+  private void releaseLock(String fileId) {
+    sessionLocks.computeIfPresent(fileId,
+        (key, sessionLock) -> --sessionLock.holders == 0 ? null : sessionLock);
+  }
+
+  /**
+   * holders는 sessionLocks.compute 안에서만 바꾼다.
+   */
+  private static class SessionLock {
+
+    private final ReadWriteLock readWriteLock = new ReentrantReadWriteLock();
+
+    private int holders;
+
+  }
+
+}
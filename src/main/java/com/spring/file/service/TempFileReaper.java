@@ -0,0 +1,231 @@
+package com.spring.file.service;
+
+import com.spring.file.metrics.FileMetrics;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.util.Throttle;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 보관 기간(tempFileMaxStorageDays)이 지난 임시 파일을 정리한다.
+ * <p>
+ * 시간 단위 폴더({@link FileProperties#getTempFile(String, String)})는 폴더 이름만으로 만료 여부를 알 수 있으므로 파일을
+ * 하나씩 확인하지 않고 휴지통(temp/.trash/{serviceCode})으로 옮긴다(rename 한 번). 휴지통과 시간 단위 폴더 밖의 예전 임시
+ * 파일(수정 시각 기준)은 {@link DirectoryStream}으로 조금씩 읽으면서 서비스별로 초당 tempReaperDeletesPerSecond개까지
+ * 삭제하므로 파일이 많아도 메모리와 디스크 부하가 일정하다. 중간에 멈춰도 다음 실행에서 이어서 정리한다.
+ * <p>
+ * 이동 대기열(TB_FILE_MOVE)에 남아 있는 임시 파일과 그 파일이 있는 시간 단위 폴더는 저장 위치로 옮길 때까지 정리하지 않는다.
+ * <p>
+ * 서비스별로 tempReaperExecutor에서 병렬로 처리하며, 진행 상황은 {@link FileMetrics}의 file.temp.reaped.* 지표로 확인한다.
+ */
+@Slf4j
+@Component
+public class TempFileReaper {
+
+  private static final String TRASH_FOLDER = ".trash";
+  private static final String HIDDEN_FOLDER_PREFIX = ".";
+
+  private final FileProperties fileProperties;
+  private final FileMetrics fileMetrics;
+  private final FileMoveService fileMoveService;
+  private final TaskExecutor tempReaperExecutor;
+  private final Set<String> reapingServiceCodes = ConcurrentHashMap.newKeySet();
+
+  public TempFileReaper(FileProperties fileProperties, FileMetrics fileMetrics,
+      FileMoveService fileMoveService,
+      @Qualifier("tempReaperExecutor") TaskExecutor tempReaperExecutor) {
+    this.fileProperties = fileProperties;
+    this.fileMetrics = fileMetrics;
+    this.fileMoveService = fileMoveService;
+    this.tempReaperExecutor = tempReaperExecutor;
+  }
+
+  @Scheduled(fixedDelayString = "${file.temp-reaper-interval:60000}")
+  public void reap() {
+    Path tempPath = Paths.get(fileProperties.getTempPath());
+    if (!Files.isDirectory(tempPath)) {
+      return;
+    }
+
+    Instant expiredTime = Instant.now()
+        .minus(Duration.ofDays(fileProperties.getTempFileMaxStorageDays()));
+
+    // .trash, .migrating, .reconciling 등 점으로 시작하는 폴더는 서비스 폴더가 아니며 각 작업이 직접 관리한다.
+    try (DirectoryStream<Path> serviceDirectories = Files.newDirectoryStream(tempPath,
+        path -> Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)
+            && !path.getFileName().toString().startsWith(HIDDEN_FOLDER_PREFIX))) {
+      for (Path serviceDirectory : serviceDirectories) {
+        submit(tempPath, serviceDirectory, expiredTime);
+      }
+    } catch (IOException e) {
+      log.warn("임시 폴더를 읽을 수 없습니다. path={}", tempPath, e);
+    }
+  }
+
+  /**
+   * 스케줄러 스레드를 붙잡지 않도록 완료를 기다리지 않으며, 이전 실행이 아직 정리 중인 서비스는 건너뛴다.
+   */
+  private void submit(Path tempPath, Path serviceDirectory, Instant expiredTime) {
+    String serviceCode = serviceDirectory.getFileName().toString();
+    if (!reapingServiceCodes.add(serviceCode)) {
+      return;
+    }
+
+    try {
+      tempReaperExecutor.execute(() -> {
+        try {
+          reap(tempPath, serviceDirectory, expiredTime);
+        } finally {
+          reapingServiceCodes.remove(serviceCode);
+        }
+      });
+    } catch (TaskRejectedException e) {
+      reapingServiceCodes.remove(serviceCode);
+      log.warn("임시 파일 정리 작업을 등록할 수 없습니다. serviceCode={}", serviceCode, e);
+    }
+  }
+
+  private void reap(Path tempPath, Path serviceDirectory, Instant expiredTime) {
+    String serviceCode = serviceDirectory.getFileName().toString();
+    Path trashDirectory = tempPath.resolve(TRASH_FOLDER).resolve(serviceCode);
+    Throttle throttle = new Throttle(fileProperties.getTempReaperDeletesPerSecond());
+
+    try {
+      Set<Path> pendingTempFiles = fileMoveService.findPendingFileIds(serviceCode).stream()
+          .map(fileId -> fileProperties.getTempFile(serviceCode, fileId))
+          .collect(Collectors.toSet());
+
+      fileMetrics.record(FileMetrics.TEMP_CLEANUP, serviceCode, () -> {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(serviceDirectory)) {
+          for (Path entry : entries) {
+            BasicFileAttributes attributes = readAttributes(entry);
+            if (attributes == null) {
+              continue;
+            }
+
+            Optional<Instant> bucketTime = getBucketTime(entry, attributes);
+            if (bucketTime.isPresent()) {
+              if (!bucketTime.get().plus(FileProperties.TEMP_BUCKET_DURATION)
+                  .isAfter(expiredTime)
+                  && pendingTempFiles.stream().noneMatch(file -> file.startsWith(entry))) {
+                moveToTrash(serviceCode, entry, trashDirectory);
+              }
+            } else if (attributes.isRegularFile()
+                && attributes.lastModifiedTime().toInstant().isBefore(expiredTime)
+                && !isPending(entry, pendingTempFiles)) {
+              delete(serviceCode, entry, attributes, throttle);
+            }
+          }
+        }
+
+        if (Files.isDirectory(trashDirectory)) {
+          emptyTrash(serviceCode, trashDirectory, throttle);
+        }
+      });
+    } catch (IOException | RuntimeException e) {
+      log.warn("임시 파일을 정리할 수 없습니다. serviceCode={}", serviceCode, e);
+    }
+  }
+
+  /**
+   * 이동 대기열(TB_FILE_MOVE)에 있는 임시 파일이나 그 해시 파일({fileId}.sha256)
+   */
+  private boolean isPending(Path file, Set<Path> pendingTempFiles) {
+    String fileName = file.getFileName().toString();
+    int extensionIndex = fileName.indexOf('.');
+    return pendingTempFiles.contains(extensionIndex < 0
+        ? file
+        : file.resolveSibling(fileName.substring(0, extensionIndex)));
+  }
+
+  /**
+   * 이름이 시간 단위 폴더 형식인 폴더의 시작 시각
+   */
+  private Optional<Instant> getBucketTime(Path entry, BasicFileAttributes attributes) {
+    if (!attributes.isDirectory()) {
+      return Optional.empty();
+    }
+
+    try {
+      return Optional.of(FileProperties.TEMP_BUCKET_FORMATTER.parse(
+          entry.getFileName().toString(), Instant::from));
+    } catch (DateTimeParseException e) {
+      return Optional.empty();
+    }
+  }
+
+  private void moveToTrash(String serviceCode, Path bucket, Path trashDirectory)
+      throws IOException {
+    Files.createDirectories(trashDirectory);
+    Files.move(bucket, trashDirectory.resolve(bucket.getFileName() + "." + UUID.randomUUID()),
+        StandardCopyOption.ATOMIC_MOVE);
+    fileMetrics.recordTempBucketExpired(serviceCode);
+  }
+
+  private void emptyTrash(String serviceCode, Path trashDirectory, Throttle throttle)
+      throws IOException {
+    Files.walkFileTree(trashDirectory, new SimpleFileVisitor<>() {
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attributes)
+          throws IOException {
+        delete(serviceCode, file, attributes, throttle);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult postVisitDirectory(Path directory, IOException e)
+          throws IOException {
+        if (e != null) {
+          throw e;
+        }
+        if (!directory.equals(trashDirectory)) {
+          Files.deleteIfExists(directory);
+        }
+        return FileVisitResult.CONTINUE;
+      }
+    });
+  }
+
+  private void delete(String serviceCode, Path file, BasicFileAttributes attributes,
+      Throttle throttle) throws IOException {
+    throttle.acquire();
+    if (Files.deleteIfExists(file)) {
+      fileMetrics.recordTempReaped(serviceCode, attributes.size());
+    }
+  }
+
+  /**
+   * 정리하는 중에 업로드 완료, 저장 등으로 없어진 파일은 null
+   */
+  private BasicFileAttributes readAttributes(Path path) throws IOException {
+    try {
+      return Files.readAttributes(path, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+    } catch (NoSuchFileException e) {
+      return null;
+    }
+  }
+
+}
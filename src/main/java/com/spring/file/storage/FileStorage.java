@@ -0,0 +1,77 @@
+package com.spring.file.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 저장 파일을 보관하는 저장소. 위치(location)는 TB_FILE.FILE_PATH와 파일명을 {@link #resolve}로 이은 문자열이다.
+ * 임시 파일과 resize 캐시는 항상 로컬 디스크에 두고, 저장된 파일만 저장소를 통해 다룬다.
+ */
+public interface FileStorage {
+
+  /**
+   * 설정(file.storages)에서 사용하는 저장소 이름
+   */
+  String getName();
+
+  /**
+   * 저장소 최상위 위치. 예) /data/file, s3://bucket
+   */
+  String getBaseLocation();
+
+  String resolve(String location, String... names);
+
+  boolean supports(String location);
+
+  /**
+   * 로컬 파일을 저장소로 옮긴다. 성공하면 source는 삭제되고, 같은 위치에 파일이 있으면 교체한다.
+   */
+  void put(Path source, String location) throws IOException;
+
+  /**
+   * 저장소 파일을 로컬 파일로 내려받는다. target이 이미 있으면 실패한다.
+   */
+  void download(String location, Path target) throws IOException;
+
+  /**
+   * 읽기 전용 채널. 위치를 옮겨가며 필요한 범위만 읽는다.
+   */
+  SeekableByteChannel open(String location) throws IOException;
+
+  InputStream get(String location, long offset, long length) throws IOException;
+
+  boolean exists(String location) throws IOException;
+
+  long size(String location) throws IOException;
+
+  /**
+   * 파일만 삭제한다. 비게 된 폴더는 {@link #deleteEmptyDirectories}로 모아서 정리한다.
+   */
+  void delete(String location) throws IOException;
+
+  /**
+   * 삭제한 파일 위치들의 상위 폴더 중 비어 있는 폴더를 최상위 위치 전까지 삭제한다. 폴더가 없는 저장소는 아무것도 하지 않는다.
+   */
+  default void deleteEmptyDirectories(Collection<String> locations) throws IOException {
+  }
+
+  void copy(String sourceLocation, String targetLocation) throws IOException;
+
+  void move(String sourceLocation, String targetLocation) throws IOException;
+
+  /**
+   * prefix 아래의 모든 파일 위치. 사용 후 닫아야 한다.
+   */
+  Stream<String> list(String prefix) throws IOException;
+
+  /**
+   * 로컬 디스크에 있는 파일이면 경로를 반환한다. (sendfile 등)
+   */
+  Optional<Path> getLocalPath(String location);
+
+}
@@ -0,0 +1,54 @@
+package com.spring.file.storage;
+
+import com.spring.file.model.FileDto;
+import com.spring.file.properties.FileProperties;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.springframework.stereotype.Component;
+
+/**
+ * 서비스코드 또는 위치로 저장소를 찾는다. 새로 저장하는 파일은 서비스별 저장소(file.storages)를 사용하고, 저장된 파일은
+ * FILE_PATH 형식으로 저장소를 판단하므로 서비스의 저장소를 바꿔도 기존 파일을 읽을 수 있다.
+ */
+@Component
+public class FileStorageRegistry {
+
+  private final FileProperties fileProperties;
+  private final List<FileStorage> fileStorages;
+  private final Map<String, FileStorage> fileStorageMap;
+
+  public FileStorageRegistry(FileProperties fileProperties, List<FileStorage> fileStorages) {
+    this.fileProperties = fileProperties;
+    this.fileStorages = fileStorages;
+    this.fileStorageMap = fileStorages.stream()
+        .collect(Collectors.toMap(FileStorage::getName, Function.identity()));
+  }
+
+  public FileStorage forService(String serviceCode) {
+    String name = fileProperties.getStorage(serviceCode);
+    FileStorage fileStorage = fileStorageMap.get(name);
+    if (fileStorage == null) {
+      throw new IllegalStateException("저장소를 찾을 수 없습니다. storage=" + name);
+    }
+
+    return fileStorage;
+  }
+
+  public FileStorage forLocation(String location) {
+    return fileStorages.stream()
+        .filter(fileStorage -> fileStorage.supports(location))
+        .findFirst()
+        .orElseThrow(() -> new IllegalStateException("저장소를 찾을 수 없습니다. location=" + location));
+  }
+
+  /**
+   * 블롭으로 저장된 파일은 파일ID 대신 블롭해시를 파일명으로 사용한다.
+   */
+  public String getLocation(FileDto fileDto) {
+    String name = fileDto.getBlobHash() != null ? fileDto.getBlobHash() : fileDto.getFileId();
+    return forLocation(fileDto.getFilePath()).resolve(fileDto.getFilePath(), name);
+  }
+
+}
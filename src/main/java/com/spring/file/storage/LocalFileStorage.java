@@ -0,0 +1,207 @@
+package com.spring.file.storage;
+
+import com.spring.file.properties.FileProperties;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.stream.Stream;
+import lombok.RequiredArgsConstructor;
+import org.apache.commons.io.input.BoundedInputStream;
+import org.springframework.stereotype.Component;
+
+/**
+ * 로컬(NFS 포함) 디스크 저장소. 위치는 파일 시스템 경로 그대로이다.
+ */
+@RequiredArgsConstructor
+@Component
+public class LocalFileStorage implements FileStorage {
+
+  public static final String NAME = "local";
+
+  private static final String DELIMITER = "/";
+
+  private final FileProperties fileProperties;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String getBaseLocation() {
+    return fileProperties.getBasePath();
+  }
+
+  @Override
+  public String resolve(String location, String... names) {
+    StringBuilder builder = new StringBuilder(location);
+    for (String name : names) {
+      builder.append(DELIMITER).append(name);
+    }
+
+    return builder.toString().replace(DELIMITER, File.separator);
+  }
+
+  @Override
+  public boolean supports(String location) {
+    return !location.contains("://");
+  }
+
+  /**
+   * 같은 파일 시스템이면 rename 한 번으로 옮기고, 아니면 대상 옆에 복사한 뒤 rename 한다.
+   */
+  @Override
+  public void put(Path source, String location) throws IOException {
+    Path target = Paths.get(location);
+    Files.createDirectories(target.getParent());
+
+    try {
+      Files.move(source, target, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (AtomicMoveNotSupportedException e) {
+      Path copyingPath = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID());
+      try {
+        copy(source, copyingPath);
+        Files.move(copyingPath, target, StandardCopyOption.REPLACE_EXISTING,
+            StandardCopyOption.ATOMIC_MOVE);
+        Files.delete(source);
+      } finally {
+        Files.deleteIfExists(copyingPath);
+      }
+    }
+  }
+
+  @Override
+  public void download(String location, Path target) throws IOException {
+    copy(Paths.get(location), target);
+  }
+
+  @Override
+  public SeekableByteChannel open(String location) throws IOException {
+    return FileChannel.open(Paths.get(location), StandardOpenOption.READ);
+  }
+
+  @Override
+  public InputStream get(String location, long offset, long length) throws IOException {
+    SeekableByteChannel channel = open(location).position(offset);
+    return new BoundedInputStream(Channels.newInputStream(channel), length);
+  }
+
+  @Override
+  public boolean exists(String location) {
+    return Files.exists(Paths.get(location));
+  }
+
+  @Override
+  public long size(String location) throws IOException {
+    return Files.size(Paths.get(location));
+  }
+
+  /**
+   * 파일만 삭제한다. 비게 된 상위 디렉토리는 {@link #deleteEmptyDirectories}에서 basePath 전까지 삭제한다.
+   */
+  @Override
+  public void delete(String location) throws IOException {
+    Files.deleteIfExists(Paths.get(location));
+  }
+
+  /**
+   * 깊은 폴더부터 한 번씩만 확인하므로 같은 폴더의 파일을 여러 개 삭제해도 폴더를 한 번만 읽는다.
+   */
+  @Override
+  public void deleteEmptyDirectories(Collection<String> locations) throws IOException {
+    Path basePath = Paths.get(fileProperties.getBasePath());
+    TreeSet<Path> directories = new TreeSet<>(Comparator.comparingInt(Path::getNameCount)
+        .reversed()
+        .thenComparing(Comparator.naturalOrder()));
+    for (String location : locations) {
+      Path parent = Paths.get(location).getParent();
+      if (parent != null && parent.startsWith(basePath) && !parent.equals(basePath)) {
+        directories.add(parent);
+      }
+    }
+
+    Path directory;
+    while ((directory = directories.pollFirst()) != null) {
+      if (!deleteIfEmpty(directory)) {
+        continue;
+      }
+
+      Path parent = directory.getParent();
+      if (parent != null && !parent.equals(basePath)) {
+        directories.add(parent);
+      }
+    }
+  }
+
+  @Override
+  public void copy(String sourceLocation, String targetLocation) throws IOException {
+    copy(Paths.get(sourceLocation), Paths.get(targetLocation));
+  }
+
+  @Override
+  public void move(String sourceLocation, String targetLocation) throws IOException {
+    put(Paths.get(sourceLocation), targetLocation);
+  }
+
+  @Override
+  public Stream<String> list(String prefix) throws IOException {
+    Path directory = Paths.get(prefix);
+    if (!Files.isDirectory(directory)) {
+      return Stream.empty();
+    }
+
+    return Files.walk(directory)
+        .filter(Files::isRegularFile)
+        .map(Path::toString);
+  }
+
+  @Override
+  public Optional<Path> getLocalPath(String location) {
+    return Optional.of(Paths.get(location));
+  }
+
+  /**
+   * {@link FileChannel#transferTo}로 복사하여 커널 안에서 복사(sendfile)되도록 한다.
+   */
+  private void copy(Path source, Path target) throws IOException {
+    Files.createDirectories(target.getParent());
+
+    try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+        FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW,
+            StandardOpenOption.WRITE)) {
+      long size = in.size();
+      long position = 0;
+      while (position < size) {
+        position += in.transferTo(position, size - position, out);
+      }
+    }
+  }
+
+  /**
+   * 비어 있지 않거나 이미 없는 폴더는 false
+   */
+  private boolean deleteIfEmpty(Path directory) throws IOException {
+    try {
+      return Files.deleteIfExists(directory);
+    } catch (DirectoryNotEmptyException e) {
+      return false;
+    }
+  }
+
+}
@@ -0,0 +1,382 @@
+package com.spring.file.storage;
+
+import com.spring.file.properties.FileProperties;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.stereotype.Component;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CopyObjectRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartCopyRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * S3 호환 저장소. 위치는 s3://{bucket}/{key} 형식이다. s3PartSize 단위로 나누어 s3TransferExecutor에서 병렬로 멀티파트
+ * 업로드, 복사, 다운로드한다.
+ */
+@Slf4j
+@ConditionalOnProperty(prefix = "file", name = "s3-bucket")
+@Component
+public class S3FileStorage implements FileStorage {
+
+  public static final String NAME = "s3";
+
+  private static final String SCHEME = "s3://";
+  private static final String DELIMITER = "/";
+
+  private final FileProperties fileProperties;
+  private final S3Client s3Client;
+  private final TaskExecutor s3TransferExecutor;
+
+  public S3FileStorage(FileProperties fileProperties, S3Client s3Client,
+      @Qualifier("s3TransferExecutor") TaskExecutor s3TransferExecutor) {
+    this.fileProperties = fileProperties;
+    this.s3Client = s3Client;
+    this.s3TransferExecutor = s3TransferExecutor;
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String getBaseLocation() {
+    return SCHEME + fileProperties.getS3Bucket();
+  }
+
+  @Override
+  public String resolve(String location, String... names) {
+    return String.join(DELIMITER, Stream.concat(Stream.of(location), Stream.of(names))
+        .toList());
+  }
+
+  @Override
+  public boolean supports(String location) {
+    return location.startsWith(SCHEME);
+  }
+
+  @Override
+  public void put(Path source, String location) throws IOException {
+    S3Location s3Location = parse(location);
+    long size = Files.size(source);
+
+    if (size <= fileProperties.getS3MultipartThreshold()) {
+      s3Client.putObject(builder -> builder.bucket(s3Location.bucket()).key(s3Location.key()),
+          RequestBody.fromFile(source));
+    } else {
+      multipart(s3Location, size, (uploadId, partNumber, offset, length) -> {
+        byte[] part = new byte[(int) length];
+        try (FileChannel channel = FileChannel.open(source, StandardOpenOption.READ)) {
+          ByteBuffer buffer = ByteBuffer.wrap(part);
+          while (buffer.hasRemaining()) {
+            channel.read(buffer, offset + buffer.position());
+          }
+        }
+
+        return s3Client.uploadPart(UploadPartRequest.builder()
+                .bucket(s3Location.bucket())
+                .key(s3Location.key())
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .contentLength(length)
+                .build(), RequestBody.fromBytes(part))
+            .eTag();
+      });
+    }
+
+    Files.delete(source);
+  }
+
+  @Override
+  public void download(String location, Path target) throws IOException {
+    S3Location s3Location = parse(location);
+    long size = size(location);
+    Files.createDirectories(target.getParent());
+
+    if (size <= fileProperties.getS3MultipartThreshold()) {
+      s3Client.getObject(GetObjectRequest.builder()
+          .bucket(s3Location.bucket())
+          .key(s3Location.key())
+          .build(), ResponseTransformer.toFile(target));
+      return;
+    }
+
+    try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE_NEW,
+        StandardOpenOption.WRITE)) {
+      long partSize = fileProperties.getS3PartSize();
+      runParts((int) ((size + partSize - 1) / partSize), index -> {
+        long offset = index * partSize;
+        long length = Math.min(partSize, size - offset);
+        try (InputStream in = get(location, offset, length)) {
+          ByteBuffer buffer = ByteBuffer.wrap(in.readAllBytes());
+          while (buffer.hasRemaining()) {
+            channel.write(buffer, offset + buffer.position());
+          }
+        }
+
+        return null;
+      });
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(target);
+      throw e;
+    }
+  }
+
+  /**
+   * 앞뒤로 암호화 청크 크기의 2배씩 캐시하여 열 때 읽는 헤더와 첫 청크 길이, 마지막 청크와 트레일러를 요청 2번으로 읽는다.
+   */
+  @Override
+  public SeekableByteChannel open(String location) throws IOException {
+    S3Location s3Location = parse(location);
+    return new S3SeekableByteChannel(s3Client, s3Location.bucket(), s3Location.key(),
+        size(location), fileProperties.getS3PartSize(), 2 * fileProperties.getEncryptChunkSize());
+  }
+
+  @Override
+  public InputStream get(String location, long offset, long length) throws IOException {
+    S3Location s3Location = parse(location);
+    if (length <= 0) {
+      return InputStream.nullInputStream();
+    }
+
+    return s3Client.getObject(GetObjectRequest.builder()
+        .bucket(s3Location.bucket())
+        .key(s3Location.key())
+        .range("bytes=" + offset + "-" + (offset + length - 1))
+        .build());
+  }
+
+  @Override
+  public boolean exists(String location) throws IOException {
+    try {
+      size(location);
+      return true;
+    } catch (FileNotFoundException e) {
+      return false;
+    }
+  }
+
+  @Override
+  public long size(String location) throws IOException {
+    S3Location s3Location = parse(location);
+    try {
+      return s3Client.headObject(HeadObjectRequest.builder()
+              .bucket(s3Location.bucket())
+              .key(s3Location.key())
+              .build())
+          .contentLength();
+    } catch (S3Exception e) {
+      if (e.statusCode() == 404) {
+        throw new FileNotFoundException(location);
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void delete(String location) {
+    S3Location s3Location = parse(location);
+    s3Client.deleteObject(DeleteObjectRequest.builder()
+        .bucket(s3Location.bucket())
+        .key(s3Location.key())
+        .build());
+  }
+
+  /**
+   * 서버 측에서 복사한다. 큰 객체는 UploadPartCopy로 나누어 병렬로 복사한다.
+   */
+  @Override
+  public void copy(String sourceLocation, String targetLocation) throws IOException {
+    S3Location source = parse(sourceLocation);
+    S3Location target = parse(targetLocation);
+    long size = size(sourceLocation);
+
+    if (size <= fileProperties.getS3MultipartThreshold()) {
+      s3Client.copyObject(CopyObjectRequest.builder()
+          .sourceBucket(source.bucket())
+          .sourceKey(source.key())
+          .destinationBucket(target.bucket())
+          .destinationKey(target.key())
+          .build());
+      return;
+    }
+
+    multipart(target, size, (uploadId, partNumber, offset, length) ->
+        s3Client.uploadPartCopy(UploadPartCopyRequest.builder()
+                .sourceBucket(source.bucket())
+                .sourceKey(source.key())
+                .destinationBucket(target.bucket())
+                .destinationKey(target.key())
+                .uploadId(uploadId)
+                .partNumber(partNumber)
+                .copySourceRange("bytes=" + offset + "-" + (offset + length - 1))
+                .build())
+            .copyPartResult()
+            .eTag());
+  }
+
+  @Override
+  public void move(String sourceLocation, String targetLocation) throws IOException {
+    copy(sourceLocation, targetLocation);
+    delete(sourceLocation);
+  }
+
+  @Override
+  public Stream<String> list(String prefix) {
+    S3Location s3Location = parse(prefix);
+    String keyPrefix = s3Location.key().isEmpty() || s3Location.key().endsWith(DELIMITER)
+        ? s3Location.key()
+        : s3Location.key() + DELIMITER;
+
+    return s3Client.listObjectsV2Paginator(ListObjectsV2Request.builder()
+            .bucket(s3Location.bucket())
+            .prefix(keyPrefix)
+            .build())
+        .contents()
+        .stream()
+        .map(S3Object::key)
+        .map(key -> SCHEME + s3Location.bucket() + DELIMITER + key);
+  }
+
+  @Override
+  public Optional<Path> getLocalPath(String location) {
+    return Optional.empty();
+  }
+
+  private void multipart(S3Location location, long size, PartTransfer partTransfer)
+      throws IOException {
+    String uploadId = s3Client.createMultipartUpload(CreateMultipartUploadRequest.builder()
+            .bucket(location.bucket())
+            .key(location.key())
+            .build())
+        .uploadId();
+
+    try {
+      long partSize = fileProperties.getS3PartSize();
+      List<CompletedPart> parts = runParts((int) ((size + partSize - 1) / partSize), index -> {
+        long offset = index * partSize;
+        int partNumber = index + 1;
+        String eTag = partTransfer.transfer(uploadId, partNumber, offset,
+            Math.min(partSize, size - offset));
+
+        return CompletedPart.builder()
+            .partNumber(partNumber)
+            .eTag(eTag)
+            .build();
+      });
+
+      s3Client.completeMultipartUpload(CompleteMultipartUploadRequest.builder()
+          .bucket(location.bucket())
+          .key(location.key())
+          .uploadId(uploadId)
+          .multipartUpload(CompletedMultipartUpload.builder()
+              .parts(parts)
+              .build())
+          .build());
+    } catch (IOException | RuntimeException e) {
+      try {
+        s3Client.abortMultipartUpload(AbortMultipartUploadRequest.builder()
+            .bucket(location.bucket())
+            .key(location.key())
+            .uploadId(uploadId)
+            .build());
+      } catch (RuntimeException abortException) {
+        log.warn("멀티파트 업로드를 중단하지 못했습니다. uploadId={}", uploadId, abortException);
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * 파트를 병렬로 처리하고, 파트 순서대로 결과를 반환한다.
+   */
+  private <T> List<T> runParts(int count, PartTask<T> task) throws IOException {
+    IntFunction<CompletableFuture<T>> submit = index -> CompletableFuture.supplyAsync(() -> {
+      try {
+        return task.run(index);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }, s3TransferExecutor);
+    List<CompletableFuture<T>> futures = IntStream.range(0, count)
+        .mapToObj(submit)
+        .toList();
+
+    try {
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException cause) {
+        throw cause.getCause();
+      }
+      throw e;
+    }
+
+    return futures.stream()
+        .map(CompletableFuture::join)
+        .toList();
+  }
+
+  private S3Location parse(String location) {
+    if (!supports(location)) {
+      throw new IllegalArgumentException("S3 위치가 아닙니다. location=" + location);
+    }
+
+    String path = location.substring(SCHEME.length());
+    int index = path.indexOf(DELIMITER);
+    return index < 0
+        ? new S3Location(path, "")
+        : new S3Location(path.substring(0, index), path.substring(index + 1));
+  }
+
+  private record S3Location(String bucket, String key) {
+
+  }
+
+  @FunctionalInterface
+  private interface PartTask<T> {
+
+    T run(int index) throws IOException;
+
+  }
+
+  @FunctionalInterface
+  private interface PartTransfer {
+
+    String transfer(String uploadId, int partNumber, long offset, long length)
+        throws IOException;
+
+  }
+
+}
@@ -0,0 +1,218 @@
+package com.spring.file.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+
+/**
+ * S3 객체를 범위(Range) GET으로 읽는 읽기 전용 채널. 한 번에 window 크기만큼 요청하고, 위치가 바뀌면 다음 읽기에서 새로
+ * 요청한다. 가까운 앞쪽으로 옮기면 요청을 끊지 않고 건너뛴다.
+ * <p>
+ * 열 때마다 읽는 앞부분(헤더)과 뒷부분(트레일러, 마지막 청크)은 cacheLength 만큼 한 번씩만 요청하여 메모리에 두므로, 위치를
+ * 오가며 읽어도 요청이 늘지 않는다.
+ */
+class S3SeekableByteChannel implements SeekableByteChannel {
+
+  private final S3Client s3Client;
+
+  private final String bucket;
+
+  private final String key;
+
+  private final long size;
+
+  private final int window;
+
+  private final int cacheLength;
+
+  /**
+   * [0, headEnd)는 head, [tailStart, size)는 tail에서 읽는다.
+   */
+  private final long headEnd;
+
+  private final long tailStart;
+
+  private byte[] head;
+
+  private byte[] tail;
+
+  private ResponseInputStream<GetObjectResponse> in;
+
+  private long inPosition;
+
+  private long inEnd;
+
+  private long position;
+
+  private boolean open = true;
+
+  S3SeekableByteChannel(S3Client s3Client, String bucket, String key, long size, int window,
+      int cacheLength) {
+    this.s3Client = s3Client;
+    this.bucket = bucket;
+    this.key = key;
+    this.size = size;
+    this.window = window;
+    this.cacheLength = cacheLength;
+    this.tailStart = Math.max(size - cacheLength, 0);
+    this.headEnd = Math.min(cacheLength, tailStart);
+  }
+
+  @Override
+  public int read(ByteBuffer dst) throws IOException {
+    ensureOpen();
+    if (position >= size) {
+      return -1;
+    }
+
+    if (position >= tailStart) {
+      if (tail == null) {
+        tail = requestFully(tailStart, size);
+      }
+      return readCached(tail, position - tailStart, dst);
+    }
+    if (position < headEnd) {
+      if (head == null) {
+        head = requestFully(0, headEnd);
+      }
+      return readCached(head, position, dst);
+    }
+
+    if (in != null && position > inPosition && position < inEnd
+        && position - inPosition <= cacheLength) {
+      in.skipNBytes(position - inPosition);
+      inPosition = position;
+    }
+    if (in == null || inPosition != position || inPosition >= inEnd) {
+      request();
+    }
+
+    int length = (int) Math.min(dst.remaining(), inEnd - inPosition);
+    int read;
+    if (dst.hasArray()) {
+      read = in.read(dst.array(), dst.arrayOffset() + dst.position(), length);
+      if (read > 0) {
+        dst.position(dst.position() + read);
+      }
+    } else {
+      byte[] buffer = new byte[length];
+      read = in.read(buffer);
+      if (read > 0) {
+        dst.put(buffer, 0, read);
+      }
+    }
+    if (read < 0) {
+      throw new IOException("S3 객체를 끝까지 읽지 못했습니다. key=" + key);
+    }
+
+    inPosition += read;
+    position += read;
+    return read;
+  }
+
+  @Override
+  public int write(ByteBuffer src) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public long position() throws IOException {
+    ensureOpen();
+    return position;
+  }
+
+  @Override
+  public SeekableByteChannel position(long newPosition) throws IOException {
+    ensureOpen();
+    position = newPosition;
+    return this;
+  }
+
+  @Override
+  public long size() throws IOException {
+    ensureOpen();
+    return size;
+  }
+
+  @Override
+  public SeekableByteChannel truncate(long size) {
+    throw new NonWritableChannelException();
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() throws IOException {
+    open = false;
+    release();
+  }
+
+  private int readCached(byte[] cached, long offset, ByteBuffer dst) {
+    int length = (int) Math.min(dst.remaining(), cached.length - offset);
+    dst.put(cached, (int) offset, length);
+
+    position += length;
+    return length;
+  }
+
+  /**
+   * tail은 캐시에서 읽으므로 tailStart 전까지만 요청한다.
+   */
+  private void request() throws IOException {
+    release();
+
+    long end = Math.min(position + window, tailStart);
+    in = getObject(position, end);
+    inPosition = position;
+    inEnd = end;
+  }
+
+  private byte[] requestFully(long start, long end) throws IOException {
+    try (ResponseInputStream<GetObjectResponse> cacheIn = getObject(start, end)) {
+      byte[] bytes = cacheIn.readNBytes((int) (end - start));
+      if (bytes.length != end - start) {
+        throw new IOException("S3 객체를 끝까지 읽지 못했습니다. key=" + key);
+      }
+      return bytes;
+    }
+  }
+
+  private ResponseInputStream<GetObjectResponse> getObject(long start, long end) {
+    return s3Client.getObject(GetObjectRequest.builder()
+        .bucket(bucket)
+        .key(key)
+        .range("bytes=" + start + "-" + (end - 1))
+        .build());
+  }
+
+  /**
+   * 남은 응답 본문을 버리고 연결을 끊는다. 다 읽은 스트림은 연결을 재사용하도록 그냥 닫는다.
+   */
+  private void release() throws IOException {
+    if (in == null) {
+      return;
+    }
+
+    if (inPosition < inEnd) {
+      in.abort();
+    }
+    in.close();
+    in = null;
+  }
+
+  private void ensureOpen() throws ClosedChannelException {
+    if (!open) {
+      throw new ClosedChannelException();
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.spring.file.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * fileId는 생성 시각(ms)이 앞에 오는 UUID version 7이다. 임시 파일은 이 시각으로 폴더를 나누므로 fileId만으로 위치와 만료 여부를
+ * 알 수 있다. 한 폴더에 파일이 너무 많아지지 않도록 fileId의 해시로 하위 폴더를 나눌 수 있다({@link #getShardNames}).
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class FileIdUtils {
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  public static String newFileId() {
+    long msb = (System.currentTimeMillis() << 16) | 0x7000L | (RANDOM.nextLong() & 0x0FFFL);
+    long lsb = (RANDOM.nextLong() & 0x3FFFFFFFFFFFFFFFL) | 0x8000000000000000L;
+
+    return new UUID(msb, lsb).toString();
+  }
+
+  /**
+   * version 7이 아닌(이전에 발급한) fileId는 생성 시각을 알 수 없다.
+   */
+  public static Optional<Instant> getCreatedTime(String fileId) {
+    UUID uuid;
+    try {
+      uuid = UUID.fromString(fileId);
+    } catch (IllegalArgumentException e) {
+      return Optional.empty();
+    }
+
+    return uuid.version() == 7
+        ? Optional.of(Instant.ofEpochMilli(uuid.getMostSignificantBits() >>> 16))
+        : Optional.empty();
+  }
+
+  /**
+   * fileId의 해시(CRC32C)를 2자리씩 나눈 depth개의 폴더 이름. fileId 앞부분(UUID v7은 생성 시각)과 관계없이 고르게 나뉜다.
+   */
+  public static String[] getShardNames(String fileId, int depth) {
+    CRC32C crc = new CRC32C();
+    crc.update(fileId.getBytes(StandardCharsets.US_ASCII));
+    String hash = String.format("%08x", crc.getValue());
+
+    String[] names = new String[depth];
+    for (int i = 0; i < depth; i++) {
+      names[i] = hash.substring(i * 2, i * 2 + 2);
+    }
+
+    return names;
+  }
+
+}
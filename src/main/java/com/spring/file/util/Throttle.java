@@ -0,0 +1,31 @@
+package com.spring.file.util;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 초당 permitsPerSecond번으로 호출 간격을 맞춘다. 한 스레드에서만 사용한다.
+ */
+public class Throttle {
+
+  private final long intervalNanos;
+  private long nextNanos = System.nanoTime();
+
+  public Throttle(int permitsPerSecond) {
+    this.intervalNanos = TimeUnit.SECONDS.toNanos(1) / permitsPerSecond;
+  }
+
+  public void acquire() throws InterruptedIOException {
+    long now = System.nanoTime();
+    if (nextNanos > now) {
+      try {
+        TimeUnit.NANOSECONDS.sleep(nextNanos - now);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException();
+      }
+    }
+    nextNanos = Math.max(nextNanos, now) + intervalNanos;
+  }
+
+}
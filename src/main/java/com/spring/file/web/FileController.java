@@ -1,5 +1,7 @@
 package com.spring.file.web;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.file.metrics.FileMetrics;
 import com.spring.file.model.FileCopyByServiceRequestDto;
 import com.spring.file.model.FileCopyByServiceResponseDto;
 import com.spring.file.model.FileDeleteByFileIdsRequestDto;
@@ -7,20 +9,33 @@ import com.spring.file.model.FileDeleteByFileIdsResponseDto;
 import com.spring.file.model.FileDeleteByServiceRequestDto;
 import com.spring.file.model.FileDeleteByServiceResponseDto;
 import com.spring.file.model.FileDto;
+import com.spring.file.model.FileFindByServicePageRequestDto;
+import com.spring.file.model.FileFindByServicePageResponseDto;
 import com.spring.file.model.FileFindByServiceRequestDto;
 import com.spring.file.model.FileFindByServiceResponseDto;
 import com.spring.file.model.FileSaveRequestDto;
 import com.spring.file.model.FileSaveResponseDto;
 import com.spring.file.model.FileUploadRequestDto;
 import com.spring.file.model.FileUploadResponseDto;
+import com.spring.file.model.FileUploadSessionCreateRequestDto;
+import com.spring.file.model.FileUploadSessionDto;
+import com.spring.file.model.FileUploadedDto;
+import com.spring.file.properties.FileProperties;
 import com.spring.file.service.FileService;
+import com.spring.file.service.FileUploadSessionService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
 import lombok.RequiredArgsConstructor;
 import org.hibernate.validator.constraints.UUID;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.support.ResourceRegion;
 import org.springframework.http.ContentDisposition;
@@ -35,18 +50,26 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = Type.SERVLET)
 @RestController
 @RequestMapping("/files")
 public class FileController {
 
   private final FileService fileService;
+  private final FileUploadSessionService fileUploadSessionService;
+  private final FileProperties fileProperties;
+  private final FileMetrics fileMetrics;
+  private final ObjectMapper objectMapper;
 
   @PostMapping("/upload")
   public ResponseEntity<FileUploadResponseDto> upload(@Valid FileUploadRequestDto requestDto)
@@ -54,6 +77,37 @@ public class FileController {
     return ResponseEntity.ok(fileService.upload(requestDto));
   }
 
+  @PostMapping("/uploads")
+  public ResponseEntity<FileUploadSessionDto> createUploadSession(
+      @Valid @RequestBody FileUploadSessionCreateRequestDto requestDto) throws IOException {
+    return ResponseEntity.ok(fileUploadSessionService.create(requestDto));
+  }
+
+  @GetMapping("/uploads/{fileId}")
+  public ResponseEntity<FileUploadSessionDto> findUploadSession(
+      @PathVariable @NotBlank @UUID(version = {1, 2, 3, 4, 5, 7}) String fileId,
+      @RequestParam @NotBlank @Size(max = 10) String serviceCode) throws IOException {
+    return ResponseEntity.ok(fileUploadSessionService.find(serviceCode, fileId));
+  }
+
+  @PutMapping(value = "/uploads/{fileId}/chunks/{index}",
+      consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+  public ResponseEntity<Void> uploadChunk(
+      @PathVariable @NotBlank @UUID(version = {1, 2, 3, 4, 5, 7}) String fileId,
+      @PathVariable int index,
+      @RequestParam @NotBlank @Size(max = 10) String serviceCode,
+      InputStream body) throws IOException {
+    fileUploadSessionService.writeChunk(serviceCode, fileId, index, body);
+    return ResponseEntity.noContent().build();
+  }
+
+  @PostMapping("/uploads/{fileId}/complete")
+  public ResponseEntity<FileUploadedDto> completeUploadSession(
+      @PathVariable @NotBlank @UUID(version = {1, 2, 3, 4, 5, 7}) String fileId,
+      @RequestParam @NotBlank @Size(max = 10) String serviceCode) throws IOException {
+    return ResponseEntity.ok(fileUploadSessionService.complete(serviceCode, fileId));
+  }
+
   @PostMapping("/save")
   public ResponseEntity<FileSaveResponseDto> save(@Valid @RequestBody FileSaveRequestDto requestDto)
       throws IOException {
@@ -66,6 +120,26 @@ public class FileController {
     return ResponseEntity.ok(fileService.findByService(requestDto));
   }
 
+  @GetMapping("/by-service/page")
+  public ResponseEntity<FileFindByServicePageResponseDto> findByServicePage(
+      @Valid @ModelAttribute FileFindByServicePageRequestDto requestDto) {
+    return ResponseEntity.ok(fileService.findByServicePage(requestDto));
+  }
+
+  /**
+   * 조회 결과를 한 줄에 하나씩 JSON으로 보낸다(NDJSON). 결과를 모두 모으지 않으므로 건수가 많아도 메모리 사용량이 일정하다.
+   */
+  @GetMapping(value = "/by-service/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamByService(
+      @Valid @ModelAttribute FileFindByServiceRequestDto requestDto) {
+    return ResponseEntity.ok()
+        .contentType(MediaType.APPLICATION_NDJSON)
+        .body(out -> fileService.streamByService(requestDto, fileDto -> {
+          out.write(objectMapper.writeValueAsBytes(fileDto));
+          out.write('\n');
+        }));
+  }
+
   @DeleteMapping("/by-file-ids")
   public ResponseEntity<FileDeleteByFileIdsResponseDto> deleteByFileIds(
       @Valid @RequestBody FileDeleteByFileIdsRequestDto requestDto) throws IOException {
@@ -85,9 +159,14 @@ public class FileController {
   }
 
   @GetMapping("/{fileId}/attach")
-  public ResponseEntity<Resource> attach(@PathVariable @NotBlank @UUID String fileId)
-      throws Exception {
+  public ResponseEntity<Resource> attach(
+      @PathVariable @NotBlank @UUID(version = {1, 2, 3, 4, 5, 7}) String fileId,
+      ServletWebRequest webRequest) throws Exception {
     FileDto fileDto = fileService.findByFileId(fileId);
+    if (checkNotModified(webRequest, fileDto, fileId)) {
+      return null;
+    }
+
     String filename = fileDto.getFileNameExtension();
     Resource resource = fileService.getResource(fileDto);
 
@@ -97,16 +176,25 @@ public class FileController {
         .build()
         .toString();
 
+    fileMetrics.recordBytes(FileMetrics.DOWNLOAD, fileDto.getServiceCode(), FileMetrics.OUT,
+        resource.contentLength());
+
     return ResponseEntity.ok()
         .contentType(contentType)
         .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+        .header(HttpHeaders.CACHE_CONTROL, getCacheControl(fileDto))
         .body(resource);
   }
 
   @GetMapping("/{fileId}/inline")
-  public ResponseEntity<Resource> inline(@PathVariable @NotBlank @UUID String fileId)
-      throws Exception {
+  public ResponseEntity<Resource> inline(
+      @PathVariable @NotBlank @UUID(version = {1, 2, 3, 4, 5, 7}) String fileId,
+      ServletWebRequest webRequest) throws Exception {
     FileDto fileDto = fileService.findByFileId(fileId);
+    if (checkNotModified(webRequest, fileDto, fileId)) {
+      return null;
+    }
+
     String filename = fileDto.getFileNameExtension();
     Resource resource = fileService.getResource(fileDto);
 
@@ -117,16 +205,25 @@ public class FileController {
         .build()
         .toString();
 
+    fileMetrics.recordBytes(FileMetrics.DOWNLOAD, fileDto.getServiceCode(), FileMetrics.OUT,
+        resource.contentLength());
+
     return ResponseEntity.ok()
         .contentType(contentType)
         .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+        .header(HttpHeaders.CACHE_CONTROL, getCacheControl(fileDto))
         .body(resource);
   }
 
   @GetMapping("/{fileId}/stream")
-  public ResponseEntity<ResourceRegion> stream(@PathVariable @NotBlank @UUID String fileId,
-      @RequestHeader HttpHeaders httpHeaders) throws Exception {
+  public ResponseEntity<ResourceRegion> stream(
+      @PathVariable @NotBlank @UUID(version = {1, 2, 3, 4, 5, 7}) String fileId,
+      @RequestHeader HttpHeaders httpHeaders, ServletWebRequest webRequest) throws Exception {
     FileDto fileDto = fileService.findByFileId(fileId);
+    if (checkNotModified(webRequest, fileDto, fileId)) {
+      return null;
+    }
+
     String filename = fileDto.getFileNameExtension();
     Resource resource = fileService.getResource(fileDto);
 
@@ -141,17 +238,25 @@ public class FileController {
     MediaType contentType = MediaTypeFactory.getMediaType(filename)
         .orElse(MediaType.APPLICATION_OCTET_STREAM);
     ResourceRegion resourceRegion = new ResourceRegion(resource, start, rangeLength);
+    fileMetrics.recordBytes(FileMetrics.DOWNLOAD, fileDto.getServiceCode(), FileMetrics.OUT,
+        rangeLength);
 
     return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
         .contentType(contentType)
+        .header(HttpHeaders.CACHE_CONTROL, getCacheControl(fileDto))
         .body(resourceRegion);
   }
 
   @GetMapping("/{fileId}/resize")
-  public ResponseEntity<Resource> resize(@PathVariable @NotBlank @UUID String fileId,
-      @RequestParam @Min(0) int width, @RequestParam @Min(0) int height)
-      throws Exception {
+  public ResponseEntity<Resource> resize(
+      @PathVariable @NotBlank @UUID(version = {1, 2, 3, 4, 5, 7}) String fileId,
+      @RequestParam @Min(0) int width, @RequestParam @Min(0) int height,
+      ServletWebRequest webRequest) throws Exception {
     FileDto fileDto = fileService.findByFileId(fileId);
+    if (checkNotModified(webRequest, fileDto, fileId + "-" + width + "x" + height)) {
+      return null;
+    }
+
     String filename = fileDto.getFileNameExtension();
     Resource resource = fileService.getResizeResource(fileDto, width, height);
 
@@ -165,7 +270,30 @@ public class FileController {
     return ResponseEntity.ok()
         .contentType(contentType)
         .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+        .header(HttpHeaders.CACHE_CONTROL, getCacheControl(fileDto))
         .body(resource);
   }
 
+  /**
+   * fileId의 파일 내용은 변경되지 않으므로 ETag는 fileId(resize는 크기 포함)로 정한다. 변경되지 않았으면 파일을 읽지 않고 304로
+   * 응답한다. Cache-Control은 304와 성공 응답에만 넣어 오류 응답이 캐시되지 않도록 한다.
+   */
+  private boolean checkNotModified(ServletWebRequest webRequest, FileDto fileDto, String etag) {
+    long lastModified = fileDto.getRegisteredDateTime() == null
+        ? -1
+        : fileDto.getRegisteredDateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+
+    boolean notModified = webRequest.checkNotModified(etag, lastModified);
+    HttpServletResponse response = webRequest.getResponse();
+    if (notModified && response != null) {
+      response.setHeader(HttpHeaders.CACHE_CONTROL, getCacheControl(fileDto));
+    }
+
+    return notModified;
+  }
+
+  private String getCacheControl(FileDto fileDto) {
+    return fileProperties.getCacheControl(fileDto.getServiceCode());
+  }
+
 }
@@ -0,0 +1,29 @@
+package com.spring.file.web;
+
+import com.spring.file.image.ImageResizeRejectedException;
+import com.spring.file.properties.FileProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+@RequiredArgsConstructor
+@RestControllerAdvice
+public class FileControllerAdvice {
+
+  private final FileProperties fileProperties;
+
+  /**
+   * resize 대기열이 가득 찬 경우. 다른 executor의 거절은 여기서 처리하지 않는다.
+   */
+  @ExceptionHandler(ImageResizeRejectedException.class)
+  public ResponseEntity<Void> handleImageResizeRejected() {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER,
+            String.valueOf(fileProperties.getResizeRetryAfterSeconds()))
+        .build();
+  }
+
+}
@@ -0,0 +1,63 @@
+package com.spring.file.web;
+
+import com.spring.file.crypto.EncryptedFileResource;
+import jakarta.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.ResourceHttpMessageConverter;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * {@link EncryptedFileResource}를 응답에 직접 기록한다. 평문 저장 파일은 Tomcat sendfile을 지원하면 sendfile로 보내므로
+ * 애플리케이션에서 복사하지 않는다. 지원하지 않으면 응답 OutputStream을 감싼 채널에
+ * {@link java.nio.channels.FileChannel#transferTo}로 기록하며, 이때는 버퍼를 거쳐 복사하므로 zero-copy가 아니다.
+ */
+public class FileResourceHttpMessageConverter extends ResourceHttpMessageConverter {
+
+  private static final String SENDFILE_SUPPORT_ATTR = "org.apache.tomcat.sendfile.support";
+  private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+  private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+  private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+  @Override
+  protected void writeContent(Resource resource, HttpOutputMessage outputMessage)
+      throws IOException {
+    if (!(resource instanceof EncryptedFileResource fileResource)) {
+      super.writeContent(resource, outputMessage);
+      return;
+    }
+
+    if (fileResource.isPlain() && fileResource.getLocalPath().isPresent()
+        && sendfile(fileResource)) {
+      return;
+    }
+
+    fileResource.transferTo(Channels.newChannel(outputMessage.getBody()));
+  }
+
+  private boolean sendfile(EncryptedFileResource fileResource) {
+    RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+    if (!(requestAttributes instanceof ServletRequestAttributes servletRequestAttributes)) {
+      return false;
+    }
+
+    HttpServletRequest request = servletRequestAttributes.getRequest();
+    if (!Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT_ATTR))) {
+      return false;
+    }
+
+    long start = fileResource.getContentOffset();
+    Path path = fileResource.getLocalPath().orElseThrow();
+    request.setAttribute(SENDFILE_FILENAME_ATTR, path.toAbsolutePath().toString());
+    request.setAttribute(SENDFILE_START_ATTR, start);
+    request.setAttribute(SENDFILE_END_ATTR, start + fileResource.contentLength());
+
+    return true;
+  }
+
+}
@@ -0,0 +1,242 @@
+package com.spring.file.web;
+
+import com.spring.file.metrics.FileMetrics;
+import com.spring.file.model.FileDeleteByFileIdsRequestDto;
+import com.spring.file.model.FileDeleteByFileIdsResponseDto;
+import com.spring.file.model.FileDeleteByServiceRequestDto;
+import com.spring.file.model.FileDeleteByServiceResponseDto;
+import com.spring.file.model.FileDto;
+import com.spring.file.model.FileFindByServicePageRequestDto;
+import com.spring.file.model.FileFindByServicePageResponseDto;
+import com.spring.file.model.FileFindByServiceRequestDto;
+import com.spring.file.model.FileFindByServiceResponseDto;
+import com.spring.file.model.FileSaveRequestDto;
+import com.spring.file.model.FileSaveResponseDto;
+import com.spring.file.model.FileUploadResponseDto;
+import com.spring.file.model.FileUploadedDto;
+import com.spring.file.service.FileService;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.apache.commons.io.FilenameUtils;
+import org.hibernate.validator.constraints.UUID;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.multipart.FilePartEvent;
+import org.springframework.http.codec.multipart.PartEvent;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * {@link FileController}의 WebFlux 버전(reactive 프로필). 업로드는 multipart를 {@link PartEvent}로 받아 버퍼
+ * 단위로 암호화 기록하고, 다운로드는 복호화 스트림을 {@link DataBuffer}로 읽어 보낸다. 두 방향 모두 소켓의 요청량(demand)만큼만
+ * 읽으므로 느린 클라이언트가 메모리나 임시 디스크에 데이터를 쌓지 않는다. 블로킹 I/O와 JDBC 호출은 각각 크기가 제한된
+ * fileIoScheduler, fileJdbcScheduler에서 실행한다.
+ */
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@RestController
+@RequestMapping("/files")
+public class ReactiveFileController {
+
+  private static final String FILES_PART_NAME = "files";
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  /**
+   * 업로드 시 파일 I/O 스레드로 미리 받아 두는 버퍼 수. 기록이 밀리면 소켓 읽기가 멈춘다.
+   */
+  private static final int PREFETCH = 4;
+
+  private final FileService fileService;
+  private final FileMetrics fileMetrics;
+  private final Scheduler fileIoScheduler;
+  private final Scheduler fileJdbcScheduler;
+
+  public ReactiveFileController(FileService fileService, FileMetrics fileMetrics,
+      @Qualifier("fileIoScheduler") Scheduler fileIoScheduler,
+      @Qualifier("fileJdbcScheduler") Scheduler fileJdbcScheduler) {
+    this.fileService = fileService;
+    this.fileMetrics = fileMetrics;
+    this.fileIoScheduler = fileIoScheduler;
+    this.fileJdbcScheduler = fileJdbcScheduler;
+  }
+
+  @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+  public Mono<ResponseEntity<FileUploadResponseDto>> upload(
+      @RequestParam @NotBlank @Size(max = 10) String serviceCode,
+      @RequestBody Flux<PartEvent> partEvents) {
+    List<String> fileIds = new CopyOnWriteArrayList<>();
+
+    return partEvents
+        .windowUntil(PartEvent::isLast)
+        .concatMap(part -> part.switchOnFirst((signal, events) -> {
+          if (signal.get() instanceof FilePartEvent filePartEvent
+              && FILES_PART_NAME.equals(filePartEvent.name())) {
+            return write(serviceCode, filePartEvent.filename(), events, fileIds);
+          }
+          return events.doOnNext(event -> DataBufferUtils.release(event.content()))
+              .then(Mono.empty());
+        }))
+        .collectList()
+        .onErrorResume(e -> rollback(serviceCode, fileIds).then(Mono.error(e)))
+        .doOnCancel(() -> rollback(serviceCode, fileIds).subscribe())
+        .map(fileUploadedList -> ResponseEntity.ok(FileUploadResponseDto.builder()
+            .files(fileUploadedList)
+            .build()));
+  }
+
+  @PostMapping("/save")
+  public Mono<ResponseEntity<FileSaveResponseDto>> save(
+      @Valid @RequestBody FileSaveRequestDto requestDto) {
+    return onJdbc(() -> fileService.save(requestDto));
+  }
+
+  @GetMapping("/by-service")
+  public Mono<ResponseEntity<FileFindByServiceResponseDto>> findByService(
+      @Valid @ModelAttribute FileFindByServiceRequestDto requestDto) {
+    return onJdbc(() -> fileService.findByService(requestDto));
+  }
+
+  @GetMapping("/by-service/page")
+  public Mono<ResponseEntity<FileFindByServicePageResponseDto>> findByServicePage(
+      @Valid @ModelAttribute FileFindByServicePageRequestDto requestDto) {
+    return onJdbc(() -> fileService.findByServicePage(requestDto));
+  }
+
+  @DeleteMapping("/by-file-ids")
+  public Mono<ResponseEntity<FileDeleteByFileIdsResponseDto>> deleteByFileIds(
+      @Valid @RequestBody FileDeleteByFileIdsRequestDto requestDto) {
+    return onJdbc(() -> fileService.deleteByFileIds(requestDto));
+  }
+
+  @DeleteMapping("/by-service")
+  public Mono<ResponseEntity<FileDeleteByServiceResponseDto>> deleteByService(
+      @Valid @ModelAttribute FileDeleteByServiceRequestDto requestDto) {
+    return onJdbc(() -> fileService.deleteByService(requestDto));
+  }
+
+  @GetMapping("/{fileId}/attach")
+  public Mono<ResponseEntity<Flux<DataBuffer>>> attach(
+      @PathVariable @NotBlank @UUID(version = {1, 2, 3, 4, 5, 7}) String fileId) {
+    return findByFileId(fileId)
+        .flatMap(fileDto -> download(fileDto, MediaType.APPLICATION_OCTET_STREAM,
+            ContentDisposition.attachment()));
+  }
+
+  @GetMapping("/{fileId}/inline")
+  public Mono<ResponseEntity<Flux<DataBuffer>>> inline(
+      @PathVariable @NotBlank @UUID(version = {1, 2, 3, 4, 5, 7}) String fileId) {
+    return findByFileId(fileId)
+        .flatMap(fileDto -> download(fileDto,
+            MediaTypeFactory.getMediaType(fileDto.getFileNameExtension()).orElseThrow(),
+            ContentDisposition.inline()));
+  }
+
+  private Mono<FileUploadedDto> write(String serviceCode, String filename,
+      Flux<PartEvent> events, List<String> fileIds) {
+    String fileId = fileService.getNewFileId();
+    fileIds.add(fileId);
+
+    return Mono.using(() -> fileService.openTempFile(serviceCode, fileId),
+            out -> events.publishOn(fileIoScheduler, PREFETCH)
+                .reduce(0L, (fileSize, event) -> fileSize + write(out, event.content())),
+            this::close)
+        .subscribeOn(fileIoScheduler)
+        .doOnNext(fileSize -> fileMetrics.recordBytes(FileMetrics.UPLOAD, serviceCode,
+            FileMetrics.IN, fileSize))
+        .map(fileSize -> FileUploadedDto.builder()
+            .fileId(fileId)
+            .fileName(FilenameUtils.removeExtension(filename))
+            .fileExtension(FilenameUtils.getExtension(filename))
+            .fileSize(fileSize)
+            .build());
+  }
+
+  private long write(OutputStream out, DataBuffer dataBuffer) {
+    try {
+      byte[] bytes = new byte[dataBuffer.readableByteCount()];
+      dataBuffer.read(bytes);
+      out.write(bytes);
+      return bytes.length;
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      DataBufferUtils.release(dataBuffer);
+    }
+  }
+
+  private void close(OutputStream out) {
+    try {
+      out.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private Mono<Void> rollback(String serviceCode, List<String> fileIds) {
+    return Mono.<Void>fromRunnable(
+            () -> fileIds.forEach(fileId -> fileService.deleteTempFile(serviceCode, fileId)))
+        .subscribeOn(fileIoScheduler);
+  }
+
+  private Mono<FileDto> findByFileId(String fileId) {
+    return Mono.fromCallable(() -> fileService.findByFileId(fileId))
+        .subscribeOn(fileJdbcScheduler)
+        .switchIfEmpty(Mono.error(new ResponseStatusException(HttpStatus.NOT_FOUND)));
+  }
+
+  private Mono<ResponseEntity<Flux<DataBuffer>>> download(FileDto fileDto, MediaType contentType,
+      ContentDisposition.Builder contentDispositionBuilder) {
+    String contentDisposition = contentDispositionBuilder
+        .filename(fileDto.getFileNameExtension(), StandardCharsets.UTF_8)
+        .build()
+        .toString();
+
+    return Mono.fromCallable(() -> fileService.getResource(fileDto))
+        .subscribeOn(fileIoScheduler)
+        .doOnNext(resource -> fileMetrics.recordBytes(FileMetrics.DOWNLOAD,
+            fileDto.getServiceCode(), FileMetrics.OUT, fileDto.getFileSize()))
+        .map(resource -> ResponseEntity.ok()
+            .contentType(contentType)
+            .contentLength(fileDto.getFileSize())
+            .header(HttpHeaders.CONTENT_DISPOSITION, contentDisposition)
+            .body(DataBufferUtils.readInputStream(resource::getInputStream,
+                    DefaultDataBufferFactory.sharedInstance, BUFFER_SIZE)
+                .subscribeOn(fileIoScheduler)));
+  }
+
+  private <T> Mono<ResponseEntity<T>> onJdbc(Callable<T> callable) {
+    return Mono.fromCallable(callable)
+        .subscribeOn(fileJdbcScheduler)
+        .map(ResponseEntity::ok);
+  }
+
+}
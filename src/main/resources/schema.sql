@@ -8,6 +8,7 @@ CREATE OR REPLACE TABLE `TB_FILE`
     `SVC_CD`        varchar(20)  NOT NULL COMMENT '서비스코드',
     `TBL_NM`        varchar(100) COMMENT '테이블명',
     `DSTN_CLMN_VAL` varchar(500) COMMENT '식별컬럼값',
+    `BLOB_HASH`     varchar(64) DEFAULT NULL COMMENT '블롭해시',
     `PROC_PRGM_ID`  varchar(50) COMMENT '처리프로그램ID',
     `RGST_PROCR_ID` varchar(50) COMMENT '등록처리자ID',
     `RGST_PROC_DTM` datetime(6) DEFAULT current_timestamp(6) COMMENT '등록처리일시',
@@ -17,4 +18,45 @@ CREATE OR REPLACE TABLE `TB_FILE`
 ) ENGINE = InnoDB
   DEFAULT CHARSET = utf8mb4
   COLLATE = utf8mb4_unicode_nopad_ci COMMENT ='파일';
-CREATE INDEX IX_FILE_01 ON FILE.TB_FILE (SVC_CD, TBL_NM, DSTN_CLMN_VAL);
\ No newline at end of file
+CREATE INDEX IX_FILE_01 ON FILE.TB_FILE (SVC_CD, TBL_NM, DSTN_CLMN_VAL);
+CREATE OR REPLACE TABLE `TB_FILE_CACHE_EVICT`
+(
+    `EVICT_SEQ`     bigint(20)  NOT NULL AUTO_INCREMENT COMMENT '무효화순번',
+    `FILE_ID`       varchar(50) NOT NULL COMMENT '파일ID',
+    `RGST_PROC_DTM` datetime(6) DEFAULT current_timestamp(6) COMMENT '등록처리일시',
+    PRIMARY KEY (`EVICT_SEQ`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_nopad_ci COMMENT ='파일캐시무효화';
+CREATE OR REPLACE TABLE `TB_FILE_BLOB`
+(
+    `BLOB_HASH`     varchar(64)  NOT NULL COMMENT '블롭해시',
+    `FILE_PATH`     varchar(500) NOT NULL COMMENT '파일경로',
+    `FILE_SIZE`     bigint(20)   NOT NULL COMMENT '파일크기',
+    `REF_CNT`       int(11)      NOT NULL COMMENT '참조수',
+    `RGST_PROC_DTM` datetime(6) DEFAULT current_timestamp(6) COMMENT '등록처리일시',
+    PRIMARY KEY (`BLOB_HASH`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_nopad_ci COMMENT ='파일블롭';
+CREATE OR REPLACE TABLE `TB_FILE_DELETE`
+(
+    `DELETE_SEQ`    bigint(20)   NOT NULL AUTO_INCREMENT COMMENT '삭제순번',
+    `FILE_ID`       varchar(50)  NOT NULL COMMENT '파일ID',
+    `FILE_LCTN`     varchar(600) NOT NULL COMMENT '파일위치',
+    `RGST_PROC_DTM` datetime(6) DEFAULT current_timestamp(6) COMMENT '등록처리일시',
+    PRIMARY KEY (`DELETE_SEQ`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_nopad_ci COMMENT ='파일삭제대기';
+CREATE INDEX IX_FILE_DELETE_01 ON FILE.TB_FILE_DELETE (FILE_LCTN);
+CREATE OR REPLACE TABLE `TB_FILE_MOVE`
+(
+    `FILE_ID`       varchar(50) NOT NULL COMMENT '파일ID',
+    `SVC_CD`        varchar(20) NOT NULL COMMENT '서비스코드',
+    `RGST_PROC_DTM` datetime(6) DEFAULT current_timestamp(6) COMMENT '등록처리일시',
+    PRIMARY KEY (`FILE_ID`)
+) ENGINE = InnoDB
+  DEFAULT CHARSET = utf8mb4
+  COLLATE = utf8mb4_unicode_nopad_ci COMMENT ='파일이동대기';
+CREATE INDEX IX_FILE_MOVE_01 ON FILE.TB_FILE_MOVE (SVC_CD);
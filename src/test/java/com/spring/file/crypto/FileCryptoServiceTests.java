@@ -0,0 +1,247 @@
+package com.spring.file.crypto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.spring.file.crypto.AeadFileCipher.Algorithm;
+import com.spring.file.mapper.FileDeleteMapper;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.storage.LocalFileStorage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+import org.jasypt.encryption.pbe.StandardPBEByteEncryptor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SyncTaskExecutor;
+
+class FileCryptoServiceTests {
+
+  private static final int CHUNK_SIZE = 1024;
+
+  private static final String PASSWORD = "password";
+
+  private static final String SALT = "salt";
+
+  @TempDir
+  Path tempDir;
+
+  private FileProperties fileProperties;
+
+  private FileCipher pbeFileCipher;
+
+  private FileCipher aesGcmFileCipher;
+
+  private FileCipher chaCha20FileCipher;
+
+  private StandardPBEByteEncryptor encryptor;
+
+  private FileDeleteMapper fileDeleteMapper;
+
+  @BeforeEach
+  void setUp() {
+    fileProperties = mock(FileProperties.class);
+    given(fileProperties.getEncryptChunkSize()).willReturn(CHUNK_SIZE);
+    given(fileProperties.getLazyMigration()).willReturn(false);
+    given(fileProperties.getTempPath()).willReturn(tempDir.resolve("temp").toString());
+
+    encryptor = new StandardPBEByteEncryptor();
+    encryptor.setPassword(PASSWORD);
+    encryptor.setAlgorithm("PBEWithMD5AndTripleDES");
+
+    pbeFileCipher = new PbeFileCipher(encryptor);
+    aesGcmFileCipher = new AeadFileCipher(Algorithm.AES_GCM, PASSWORD, SALT);
+    chaCha20FileCipher = new AeadFileCipher(Algorithm.CHACHA20_POLY1305, PASSWORD, SALT);
+    fileDeleteMapper = mock(FileDeleteMapper.class);
+  }
+
+  static Stream<Arguments> versionsAndLengths() {
+    return Stream.of(EncryptedFileHeader.VERSION_PLAIN, EncryptedFileHeader.VERSION_PBE_CHUNKED,
+            EncryptedFileHeader.VERSION_AES_GCM_CHUNKED,
+            EncryptedFileHeader.VERSION_CHACHA20_POLY1305_CHUNKED)
+        .flatMap(version -> Stream.of(0, 1, CHUNK_SIZE - 1, CHUNK_SIZE, CHUNK_SIZE + 1,
+                3 * CHUNK_SIZE + 17)
+            .map(length -> Arguments.of(version, length)));
+  }
+
+  @ParameterizedTest
+  @MethodSource("versionsAndLengths")
+  void roundTrip(int version, int length) throws IOException {
+    FileCryptoService fileCryptoService = newFileCryptoService(version);
+    byte[] content = randomBytes(length);
+    Path path = tempDir.resolve("file");
+
+    long written = version == EncryptedFileHeader.VERSION_PLAIN
+        ? fileCryptoService.writePlain(new ByteArrayInputStream(content), path)
+        : fileCryptoService.encrypt(new ByteArrayInputStream(content), path);
+    assertThat(written).isEqualTo(length);
+
+    try (InputStream in = fileCryptoService.decrypt(path)) {
+      assertThat(in.readAllBytes()).isEqualTo(content);
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    assertThat(fileCryptoService.transferTo(path.toString(), Channels.newChannel(out)))
+        .isEqualTo(length);
+    assertThat(out.toByteArray()).isEqualTo(content);
+
+    assertRandomRanges(fileCryptoService, path, content);
+  }
+
+  @Test
+  void readLegacyFileWithoutHeader() throws IOException {
+    FileCryptoService fileCryptoService = newFileCryptoService(
+        EncryptedFileHeader.VERSION_AES_GCM_CHUNKED);
+    byte[] content = randomBytes(3 * CHUNK_SIZE + 17);
+    Path path = tempDir.resolve("legacy");
+    Files.write(path, encryptor.encrypt(content));
+
+    try (InputStream in = fileCryptoService.decrypt(path)) {
+      assertThat(in.readAllBytes()).isEqualTo(content);
+    }
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    fileCryptoService.transferTo(path.toString(), Channels.newChannel(out));
+    assertThat(out.toByteArray()).isEqualTo(content);
+
+    assertRandomRanges(fileCryptoService, path, content);
+  }
+
+  @Test
+  void rejectTruncatedTrailingChunks() throws IOException {
+    FileCryptoService fileCryptoService = newFileCryptoService(
+        EncryptedFileHeader.VERSION_AES_GCM_CHUNKED);
+    Path path = tempDir.resolve("file");
+    fileCryptoService.encrypt(new ByteArrayInputStream(randomBytes(3 * CHUNK_SIZE + 17)), path);
+
+    // 뒤쪽 청크 2개를 잘라내고 트레일러를 남은 청크에 맞게 고친다.
+    long stride = EncryptedFileHeader.CHUNK_LENGTH_FIELD_SIZE
+        + aesGcmFileCipher.getEncryptedLength(CHUNK_SIZE);
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      long position = EncryptedFileHeader.LENGTH + 2 * stride;
+      channel.truncate(position);
+      channel.write(ByteBuffer.allocate(EncryptedFileHeader.TRAILER_LENGTH)
+          .putLong(2L * CHUNK_SIZE)
+          .flip(), position);
+    }
+
+    assertThatThrownBy(() -> fileCryptoService.decrypt(path).close())
+        .isInstanceOf(FileCipherException.class);
+  }
+
+  @Test
+  void pbeEncryptedLengthMatchesEncryptor() {
+    for (int length = 0; length <= 2 * 8 + 1; length++) {
+      assertThat(pbeFileCipher.getEncryptedLength(length)).as("length=%d", length)
+          .isEqualTo(encryptor.encrypt(new byte[length]).length);
+    }
+    assertThat(pbeFileCipher.getEncryptedLength(CHUNK_SIZE))
+        .isEqualTo(encryptor.encrypt(new byte[CHUNK_SIZE]).length);
+  }
+
+  @Test
+  void migrateOutdatedFile() throws IOException {
+    byte[] content = randomBytes(3 * CHUNK_SIZE + 17);
+    Path path = tempDir.resolve("file");
+    newFileCryptoService(EncryptedFileHeader.VERSION_PBE_CHUNKED)
+        .encrypt(new ByteArrayInputStream(content), path);
+
+    given(fileProperties.getLazyMigration()).willReturn(true);
+    FileCryptoService fileCryptoService = newFileCryptoService(
+        EncryptedFileHeader.VERSION_AES_GCM_CHUNKED);
+    Resource resource = fileCryptoService.getResource(path.toString());
+
+    assertThat(readVersion(path)).isEqualTo(EncryptedFileHeader.VERSION_AES_GCM_CHUNKED);
+    // 변환 전에 만든 resource도 변환된 파일을 읽는다.
+    try (InputStream in = resource.getInputStream()) {
+      assertThat(in.readAllBytes()).isEqualTo(content);
+    }
+  }
+
+  @Test
+  void doNotMigrateDeletedFile() throws IOException {
+    Path pendingPath = tempDir.resolve("pending");
+    Path deletedPath = tempDir.resolve("deleted");
+    FileCryptoService pbeFileCryptoService = newFileCryptoService(
+        EncryptedFileHeader.VERSION_PBE_CHUNKED);
+    pbeFileCryptoService.encrypt(new ByteArrayInputStream(randomBytes(100)), pendingPath);
+    pbeFileCryptoService.encrypt(new ByteArrayInputStream(randomBytes(100)), deletedPath);
+
+    given(fileProperties.getLazyMigration()).willReturn(true);
+    given(fileDeleteMapper.existsByLocation(pendingPath.toString())).willReturn(true);
+    // 변환하는 동안 삭제된 파일
+    given(fileDeleteMapper.existsByLocation(deletedPath.toString())).willAnswer(invocation -> {
+      Files.delete(deletedPath);
+      return false;
+    });
+    FileCryptoService fileCryptoService = newFileCryptoService(
+        EncryptedFileHeader.VERSION_AES_GCM_CHUNKED);
+    fileCryptoService.getResource(pendingPath.toString());
+    fileCryptoService.getResource(deletedPath.toString());
+
+    assertThat(readVersion(pendingPath)).isEqualTo(EncryptedFileHeader.VERSION_PBE_CHUNKED);
+    assertThat(deletedPath).doesNotExist();
+  }
+
+  private FileCryptoService newFileCryptoService(int version) {
+    FileCipher fileCipher = switch (version) {
+      case EncryptedFileHeader.VERSION_PBE_CHUNKED -> pbeFileCipher;
+      case EncryptedFileHeader.VERSION_CHACHA20_POLY1305_CHUNKED -> chaCha20FileCipher;
+      default -> aesGcmFileCipher;
+    };
+    FileStorageRegistry fileStorageRegistry = new FileStorageRegistry(fileProperties,
+        List.of(new LocalFileStorage(fileProperties)));
+
+    return new FileCryptoService(fileProperties, fileCipher,
+        List.of(pbeFileCipher, aesGcmFileCipher, chaCha20FileCipher), new SyncTaskExecutor(),
+        fileStorageRegistry, fileDeleteMapper);
+  }
+
+  private void assertRandomRanges(FileCryptoService fileCryptoService, Path path, byte[] content)
+      throws IOException {
+    Random random = new Random(content.length);
+    for (int i = 0; i < 20; i++) {
+      int start = random.nextInt(content.length + 1);
+      int length = random.nextInt(content.length - start + 1);
+
+      try (InputStream in = fileCryptoService.decrypt(path)) {
+        assertThat(in.skip(start)).isEqualTo(start);
+        assertThat(in.readNBytes(length))
+            .isEqualTo(Arrays.copyOfRange(content, start, start + length));
+      }
+    }
+  }
+
+  private static int readVersion(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return EncryptedFileHeader.read(channel).orElseThrow().getVersion();
+    }
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+
+    return bytes;
+  }
+
+}
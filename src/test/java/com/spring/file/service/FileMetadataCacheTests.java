@@ -0,0 +1,159 @@
+package com.spring.file.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.spring.file.mapper.FileCacheEvictMapper;
+import com.spring.file.model.FileCacheEvictDto;
+import com.spring.file.model.FileDto;
+import com.spring.file.properties.FileProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * 두 노드가 TB_FILE_CACHE_EVICT(메모리로 흉내 낸 {@link InMemoryFileCacheEvictMapper})를 함께 사용한다.
+ */
+class FileMetadataCacheTests {
+
+  private static final String FILE_ID = "0190a6d2-6b6f-7b3a-8f00-000000000001";
+
+  private static final String OTHER_FILE_ID = "0190a6d2-6b6f-7b3a-8f00-000000000002";
+
+  private final InMemoryFileCacheEvictMapper fileCacheEvictMapper =
+      new InMemoryFileCacheEvictMapper();
+
+  private FileProperties fileProperties;
+
+  private FileMetadataCache node1;
+
+  private FileMetadataCache node2;
+
+  @BeforeEach
+  void setUp() {
+    fileProperties = mock(FileProperties.class);
+    given(fileProperties.getMetadataCacheMaxSize()).willReturn(1000L);
+    given(fileProperties.getMetadataCacheTtl()).willReturn(Duration.ofMinutes(10));
+    given(fileProperties.getMetadataCacheNegativeTtl()).willReturn(Duration.ofMinutes(10));
+    given(fileProperties.getMetadataCacheBroadcast()).willReturn(true);
+    given(fileProperties.getBatchSize()).willReturn(100);
+
+    node1 = new FileMetadataCache(fileProperties, fileCacheEvictMapper, new SimpleMeterRegistry());
+    node2 = new FileMetadataCache(fileProperties, fileCacheEvictMapper, new SimpleMeterRegistry());
+    // 첫 조회는 현재 마지막 순번부터 받도록 시작 위치만 정한다.
+    node1.receiveEvicts();
+    node2.receiveEvicts();
+  }
+
+  @Test
+  void evictOnOtherNode() {
+    assertThat(get(node2, FILE_ID, "before")).isEqualTo("before");
+
+    node1.evict(List.of(FILE_ID));
+    assertThat(get(node2, FILE_ID, "after")).isEqualTo("before");
+
+    node2.receiveEvicts();
+    assertThat(get(node2, FILE_ID, "after")).isEqualTo("after");
+  }
+
+  @Test
+  void evictCommittedAfterLaterSequence() {
+    assertThat(get(node2, FILE_ID, "before")).isEqualTo("before");
+    assertThat(get(node2, OTHER_FILE_ID, "before")).isEqualTo("before");
+
+    // 먼저 발급된 순번이 나중에 커밋된다.
+    long lateEvictSeq = fileCacheEvictMapper.reserve();
+    node1.evict(List.of(OTHER_FILE_ID));
+
+    node2.receiveEvicts();
+    assertThat(get(node2, OTHER_FILE_ID, "after")).isEqualTo("after");
+    assertThat(get(node2, FILE_ID, "after")).isEqualTo("before");
+
+    fileCacheEvictMapper.commit(lateEvictSeq, FILE_ID);
+    node2.receiveEvicts();
+    assertThat(get(node2, FILE_ID, "after")).isEqualTo("after");
+  }
+
+  @Test
+  void doNotBroadcastWhenDisabled() {
+    given(fileProperties.getMetadataCacheBroadcast()).willReturn(false);
+
+    node1.evict(List.of(FILE_ID));
+    assertThat(fileCacheEvictMapper.findAfter(0)).isEmpty();
+  }
+
+  /**
+   * 노드에 캐시된 파일명. 캐시되지 않았으면 fileName으로 채운다.
+   */
+  private static String get(FileMetadataCache cache, String fileId, String fileName) {
+    return cache.get(fileId, key -> FileDto.builder()
+            .fileId(key)
+            .fileName(fileName)
+            .build())
+        .getFileName();
+  }
+
+  /**
+   * EVICT_SEQ는 발급 순서대로 증가하지만 커밋된 행만 조회된다.
+   */
+  private static class InMemoryFileCacheEvictMapper implements FileCacheEvictMapper {
+
+    private final AtomicLong evictSeq = new AtomicLong();
+
+    private final NavigableMap<Long, String> committed = new ConcurrentSkipListMap<>();
+
+    long reserve() {
+      return evictSeq.incrementAndGet();
+    }
+
+    void commit(long seq, String fileId) {
+      committed.put(seq, fileId);
+    }
+
+    @Override
+    public int insertBulk(List<String> fileIds) {
+      fileIds.forEach(fileId -> commit(reserve(), fileId));
+      return fileIds.size();
+    }
+
+    @Override
+    public Long findMaxEvictSeq() {
+      return committed.isEmpty() ? null : committed.lastKey();
+    }
+
+    @Override
+    public List<FileCacheEvictDto> findAfter(long seq) {
+      return committed.tailMap(seq, false).entrySet().stream()
+          .map(entry -> FileCacheEvictDto.builder()
+              .evictSeq(entry.getKey())
+              .fileId(entry.getValue())
+              .build())
+          .toList();
+    }
+
+    @Override
+    public List<FileCacheEvictDto> findByEvictSeqs(List<Long> evictSeqs) {
+      return evictSeqs.stream()
+          .filter(committed::containsKey)
+          .map(seq -> FileCacheEvictDto.builder()
+              .evictSeq(seq)
+              .fileId(committed.get(seq))
+              .build())
+          .toList();
+    }
+
+    @Override
+    public int deleteBefore(LocalDateTime registeredDateTime) {
+      return 0;
+    }
+
+  }
+
+}
@@ -0,0 +1,159 @@
+package com.spring.file.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.image.ImageRenditionService;
+import com.spring.file.image.ImageResizeCache;
+import com.spring.file.image.ImageResizer;
+import com.spring.file.mapper.FileMapper;
+import com.spring.file.metrics.FileMetrics;
+import com.spring.file.model.FileDto;
+import com.spring.file.model.FileFindByServicePageRequestDto;
+import com.spring.file.model.FileFindByServicePageResponseDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.util.FileIdUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * findByServicePage의 cursor. FileMapper.findByServiceAfter는 XML의 keyset 조건(TBL_NM, DSTN_CLMN_VAL,
+ * FILE_ID 순서로 last 다음)을 그대로 흉내 낸다.
+ */
+class FileServicePageTests {
+
+  private static final String SERVICE_CODE = "BOARD";
+
+  private static final Comparator<FileDto> KEY_ORDER = Comparator
+      .comparing(FileDto::getTableName)
+      .thenComparing(FileDto::getDistinguishColumnValue)
+      .thenComparing(FileDto::getFileId);
+
+  private final List<FileDto> files = new ArrayList<>();
+
+  private FileService fileService;
+
+  @BeforeEach
+  void setUp() {
+    FileMapper fileMapper = mock(FileMapper.class);
+    given(fileMapper.findByServiceAfter(any(), any(), anyInt())).willAnswer(invocation -> {
+      FileDto params = invocation.getArgument(0);
+      FileDto last = invocation.getArgument(1);
+      int limit = invocation.getArgument(2);
+
+      return files.stream()
+          .filter(file -> file.getServiceCode().equals(params.getServiceCode()))
+          .filter(file -> params.getTableName() == null
+              || file.getTableName().equals(params.getTableName()))
+          .filter(file -> last == null || KEY_ORDER.compare(file, last) > 0)
+          .sorted(KEY_ORDER)
+          .limit(limit)
+          .toList();
+    });
+
+    FileProperties fileProperties = mock(FileProperties.class);
+    fileService = new FileService(fileProperties, mock(FileCryptoService.class), fileMapper,
+        mock(FileMetadataCache.class), mock(FileBlobService.class),
+        mock(FileDeleteService.class), mock(FileMoveService.class),
+        mock(FileTransferService.class), mock(FileStorageRegistry.class),
+        mock(ImageResizeCache.class), mock(ImageResizer.class), mock(ImageRenditionService.class),
+        new FileMetrics(fileProperties, new SimpleMeterRegistry()));
+  }
+
+  @Test
+  void pageThroughDuplicateSortKeys() {
+    // 같은 (TBL_NM, DSTN_CLMN_VAL)이 페이지 경계에 걸치도록 여러 건씩 둔다.
+    addFiles("TB_BOARD", "1", 7);
+    addFiles("TB_BOARD", "10", 1);
+    addFiles("TB_BOARD", "2", 5);
+    addFiles("TB_NOTICE", "1", 4);
+    addFiles("TB_OTHER", "1", 3, "OTHER");
+    Collections.shuffle(files, new Random(1));
+
+    for (int size : new int[]{1, 3, 4, 17, 100}) {
+      assertThat(findAll(size)).as("size=%d", size)
+          .containsExactlyElementsOf(expected());
+    }
+  }
+
+  @Test
+  void lastFullPageHasNoNextCursor() {
+    addFiles("TB_BOARD", "1", 6);
+
+    FileFindByServicePageResponseDto first = find(null, 3);
+    assertThat(first.getNextCursor()).isNotNull();
+
+    FileFindByServicePageResponseDto second = find(first.getNextCursor(), 3);
+    assertThat(second.getFiles()).hasSize(3);
+    assertThat(second.getNextCursor()).isNull();
+  }
+
+  @Test
+  void rejectMalformedCursor() {
+    for (String cursor : new String[]{"not base64!", "YQ"}) {
+      assertThatThrownBy(() -> find(cursor, 3))
+          .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+              assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+  }
+
+  private List<String> findAll(int size) {
+    List<String> fileIds = new ArrayList<>();
+    String cursor = null;
+    do {
+      FileFindByServicePageResponseDto page = find(cursor, size);
+      assertThat(page.getFiles()).hasSizeLessThanOrEqualTo(size);
+      page.getFiles().forEach(file -> fileIds.add(file.getFileId()));
+      cursor = page.getNextCursor();
+    } while (cursor != null);
+
+    return fileIds;
+  }
+
+  private FileFindByServicePageResponseDto find(String cursor, int size) {
+    return fileService.findByServicePage(FileFindByServicePageRequestDto.builder()
+        .serviceCode(SERVICE_CODE)
+        .cursor(cursor)
+        .size(size)
+        .build());
+  }
+
+  private List<String> expected() {
+    return files.stream()
+        .filter(file -> file.getServiceCode().equals(SERVICE_CODE))
+        .sorted(KEY_ORDER)
+        .map(FileDto::getFileId)
+        .toList();
+  }
+
+  private void addFiles(String tableName, String distinguishColumnValue, int count) {
+    addFiles(tableName, distinguishColumnValue, count, SERVICE_CODE);
+  }
+
+  private void addFiles(String tableName, String distinguishColumnValue, int count,
+      String serviceCode) {
+    for (int i = 0; i < count; i++) {
+      files.add(FileDto.builder()
+          .fileId(FileIdUtils.newFileId())
+          .serviceCode(serviceCode)
+          .tableName(tableName)
+          .distinguishColumnValue(distinguishColumnValue)
+          .build());
+    }
+  }
+
+}
@@ -0,0 +1,263 @@
+package com.spring.file.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.file.crypto.AeadFileCipher;
+import com.spring.file.crypto.AeadFileCipher.Algorithm;
+import com.spring.file.crypto.FileCipher;
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.mapper.FileDeleteMapper;
+import com.spring.file.metrics.FileMetrics;
+import com.spring.file.model.FileUploadSessionCreateRequestDto;
+import com.spring.file.model.FileUploadSessionDto;
+import com.spring.file.model.FileUploadedDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.storage.FileStorageRegistry;
+import com.spring.file.storage.LocalFileStorage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+class FileUploadSessionServiceTests {
+
+  private static final int ENCRYPT_CHUNK_SIZE = 1024;
+
+  private static final int UPLOAD_CHUNK_SIZE = 2 * ENCRYPT_CHUNK_SIZE;
+
+  private static final long UPLOAD_MAX_FILE_SIZE = 100L * UPLOAD_CHUNK_SIZE;
+
+  private static final String SERVICE_CODE = "BOARD";
+
+  @TempDir
+  Path tempDir;
+
+  private FileCryptoService fileCryptoService;
+
+  private FileUploadSessionService fileUploadSessionService;
+
+  private ExecutorService executor;
+
+  @BeforeEach
+  void setUp() {
+    FileProperties fileProperties = mock(FileProperties.class);
+    given(fileProperties.getEncryptChunkSize()).willReturn(ENCRYPT_CHUNK_SIZE);
+    given(fileProperties.getUploadChunkSize()).willReturn(UPLOAD_CHUNK_SIZE);
+    given(fileProperties.getUploadMaxFileSize()).willReturn(UPLOAD_MAX_FILE_SIZE);
+    given(fileProperties.getLazyMigration()).willReturn(false);
+    given(fileProperties.getTempFile(any(), any()))
+        .willAnswer(invocation -> tempDir.resolve(invocation.getArgument(1, String.class)));
+
+    FileCipher fileCipher = new AeadFileCipher(Algorithm.AES_GCM, "password", "salt");
+    fileCryptoService = new FileCryptoService(fileProperties, fileCipher, List.of(fileCipher),
+        new SyncTaskExecutor(), new FileStorageRegistry(fileProperties,
+        List.of(new LocalFileStorage(fileProperties))), mock(FileDeleteMapper.class));
+    fileUploadSessionService = new FileUploadSessionService(fileProperties, fileCryptoService,
+        mock(FileBlobService.class), new ObjectMapper(),
+        new FileMetrics(fileProperties, new SimpleMeterRegistry()));
+    executor = Executors.newFixedThreadPool(4);
+  }
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void writeChunksInAnyOrderAndComplete() throws Exception {
+    byte[] content = randomBytes(2 * UPLOAD_CHUNK_SIZE + 100);
+    FileUploadSessionDto session = create(content.length);
+    assertThat(session.getChunkSize()).isEqualTo(UPLOAD_CHUNK_SIZE);
+    assertThat(session.getChunkCount()).isEqualTo(3);
+
+    // 같은 청크를 다시 올리면 덮어쓴다.
+    writeChunk(session, 1, new byte[UPLOAD_CHUNK_SIZE]);
+
+    List<Future<?>> futures = new ArrayList<>();
+    for (int index = session.getChunkCount() - 1; index >= 0; index--) {
+      int chunkIndex = index;
+      futures.add(executor.submit(() -> {
+        writeChunk(session, chunkIndex, slice(content, session, chunkIndex));
+        return null;
+      }));
+    }
+    for (Future<?> future : futures) {
+      future.get();
+    }
+
+    assertThat(fileUploadSessionService.find(SERVICE_CODE, session.getFileId())
+        .getReceivedChunks()).containsExactly(0, 1, 2);
+
+    FileUploadedDto uploaded = fileUploadSessionService.complete(SERVICE_CODE,
+        session.getFileId());
+    assertThat(uploaded.getFileSize()).isEqualTo(content.length);
+    try (InputStream in = fileCryptoService.decrypt(tempDir.resolve(session.getFileId()))) {
+      assertThat(in.readAllBytes()).isEqualTo(content);
+    }
+
+    assertThatThrownBy(() -> writeChunk(session, 0, slice(content, session, 0)))
+        .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+  }
+
+  @Test
+  void rejectIncompleteSessionAndWrongChunk() throws Exception {
+    byte[] content = randomBytes(2 * UPLOAD_CHUNK_SIZE + 100);
+    FileUploadSessionDto session = create(content.length);
+    writeChunk(session, 0, slice(content, session, 0));
+
+    assertThatThrownBy(() -> fileUploadSessionService.complete(SERVICE_CODE,
+        session.getFileId()))
+        .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+    assertThatThrownBy(() -> writeChunk(session, 3, new byte[1]))
+        .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    assertThatThrownBy(() -> writeChunk(session, 2, new byte[UPLOAD_CHUNK_SIZE]))
+        .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+            assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+  }
+
+  @Test
+  void completeWaitsForChunkBeingWritten() throws Exception {
+    byte[] content = randomBytes(UPLOAD_CHUNK_SIZE - 100);
+    FileUploadSessionDto session = create(content.length);
+    Path dataFile = tempDir.resolve(session.getFileId() + ".uploading");
+
+    // 청크의 앞부분을 읽은 뒤 release까지 입력이 멈춘다.
+    CountDownLatch reading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    InputStream in = new InputStream() {
+
+      private final InputStream head = new ByteArrayInputStream(content, 0, 100);
+
+      private final InputStream tail = new ByteArrayInputStream(content, 100,
+          content.length - 100);
+
+      @Override
+      public int read() throws IOException {
+        byte[] b = new byte[1];
+        return read(b, 0, 1) < 0 ? -1 : b[0] & 0xff;
+      }
+
+      @Override
+      public int read(byte[] b, int off, int len) throws IOException {
+        int read = head.read(b, off, len);
+        if (read >= 0) {
+          return read;
+        }
+
+        reading.countDown();
+        try {
+          release.await();
+        } catch (InterruptedException e) {
+          throw new InterruptedIOException();
+        }
+        return tail.read(b, off, len);
+      }
+
+    };
+    Future<?> chunk = executor.submit(() -> {
+      fileUploadSessionService.writeChunk(SERVICE_CODE, session.getFileId(), 0, in);
+      return null;
+    });
+    assertThat(reading.await(10, TimeUnit.SECONDS)).isTrue();
+
+    Future<FileUploadedDto> completed = executor.submit(() ->
+        fileUploadSessionService.complete(SERVICE_CODE, session.getFileId()));
+    // 기록 중인 청크의 잠금이 GC로 사라지지 않아야 한다.
+    System.gc();
+    assertThatThrownBy(() -> completed.get(500, TimeUnit.MILLISECONDS))
+        .isInstanceOf(TimeoutException.class);
+    assertThat(dataFile).exists();
+
+    release.countDown();
+    chunk.get(10, TimeUnit.SECONDS);
+    assertThat(completed.get(10, TimeUnit.SECONDS).getFileSize()).isEqualTo(content.length);
+    assertThat(dataFile).doesNotExist();
+    try (InputStream decrypted = fileCryptoService.decrypt(
+        tempDir.resolve(session.getFileId()))) {
+      assertThat(decrypted.readAllBytes()).isEqualTo(content);
+    }
+  }
+
+  @Test
+  void completeEmptyFile() throws Exception {
+    FileUploadSessionDto session = create(0);
+    assertThat(session.getChunkCount()).isZero();
+
+    fileUploadSessionService.complete(SERVICE_CODE, session.getFileId());
+    try (InputStream in = fileCryptoService.decrypt(tempDir.resolve(session.getFileId()))) {
+      assertThat(in.readAllBytes()).isEmpty();
+    }
+  }
+
+  @Test
+  void rejectFileLargerThanMax() throws Exception {
+    assertThat(create(UPLOAD_MAX_FILE_SIZE).getChunkCount()).isEqualTo(100);
+
+    for (long fileSize : new long[]{UPLOAD_MAX_FILE_SIZE + 1, Long.MAX_VALUE}) {
+      assertThatThrownBy(() -> create(fileSize))
+          .isInstanceOfSatisfying(ResponseStatusException.class, e ->
+              assertThat(e.getStatusCode()).isEqualTo(HttpStatus.PAYLOAD_TOO_LARGE));
+    }
+    // 최대 크기 세션의 .uploading, .chunks, .session만 남는다.
+    try (Stream<Path> files = Files.list(tempDir)) {
+      assertThat(files).hasSize(3);
+    }
+  }
+
+  private FileUploadSessionDto create(long fileSize) throws IOException {
+    return fileUploadSessionService.create(FileUploadSessionCreateRequestDto.builder()
+        .serviceCode(SERVICE_CODE)
+        .originalFilename("sample.bin")
+        .fileSize(fileSize)
+        .build());
+  }
+
+  private void writeChunk(FileUploadSessionDto session, int index, byte[] chunk)
+      throws IOException {
+    fileUploadSessionService.writeChunk(SERVICE_CODE, session.getFileId(), index,
+        new ByteArrayInputStream(chunk));
+  }
+
+  private static byte[] slice(byte[] content, FileUploadSessionDto session, int index) {
+    int from = index * session.getChunkSize();
+    int to = Math.min(content.length, from + session.getChunkSize());
+    return Arrays.copyOfRange(content, from, to);
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+
+    return bytes;
+  }
+
+}
@@ -0,0 +1,237 @@
+package com.spring.file.storage;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import com.spring.file.crypto.AeadFileCipher;
+import com.spring.file.crypto.AeadFileCipher.Algorithm;
+import com.spring.file.crypto.EncryptedFileResource;
+import com.spring.file.crypto.FileCipher;
+import com.spring.file.crypto.FileCryptoService;
+import com.spring.file.mapper.FileDeleteMapper;
+import com.spring.file.properties.FileProperties;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.SyncTaskExecutor;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * {@link S3StandInServer}(MinIO처럼 endpoint를 지정하고 path-style로 접근하는 S3 호환 서버)에 실제 SDK로 요청한다.
+ */
+class S3FileStorageTests {
+
+  private static final int PART_SIZE = 4096;
+
+  private static final int LARGE_LENGTH = 3 * PART_SIZE + 123;
+
+  @TempDir
+  Path tempDir;
+
+  private S3StandInServer server;
+
+  private S3Client s3Client;
+
+  private ExecutorService executor;
+
+  private FileProperties fileProperties;
+
+  private S3FileStorage s3FileStorage;
+
+  @BeforeEach
+  void setUp() throws IOException {
+    server = new S3StandInServer();
+    s3Client = S3Client.builder()
+        .endpointOverride(server.getEndpoint())
+        .forcePathStyle(true)
+        .region(Region.US_EAST_1)
+        .credentialsProvider(StaticCredentialsProvider.create(
+            AwsBasicCredentials.create("access", "secret")))
+        .build();
+    executor = Executors.newFixedThreadPool(4);
+
+    fileProperties = mock(FileProperties.class);
+    given(fileProperties.getS3Bucket()).willReturn("bucket");
+    given(fileProperties.getS3PartSize()).willReturn(PART_SIZE);
+    given(fileProperties.getS3MultipartThreshold()).willReturn(2L * PART_SIZE);
+    given(fileProperties.getEncryptChunkSize()).willReturn(1024);
+    given(fileProperties.getLazyMigration()).willReturn(false);
+
+    s3FileStorage = new S3FileStorage(fileProperties, s3Client, executor::execute);
+  }
+
+  @AfterEach
+  void tearDown() {
+    s3Client.close();
+    executor.shutdownNow();
+    server.close();
+  }
+
+  @Test
+  void putGetAndDelete() throws IOException {
+    byte[] content = randomBytes(1000);
+    String location = location("small");
+
+    Path source = write(content);
+    s3FileStorage.put(source, location);
+    assertThat(source).doesNotExist();
+    assertThat(s3FileStorage.exists(location)).isTrue();
+    assertThat(s3FileStorage.size(location)).isEqualTo(content.length);
+
+    try (InputStream in = s3FileStorage.get(location, 10, 100)) {
+      assertThat(in.readAllBytes()).isEqualTo(Arrays.copyOfRange(content, 10, 110));
+    }
+
+    Path target = tempDir.resolve("download");
+    s3FileStorage.download(location, target);
+    assertThat(target).hasBinaryContent(content);
+
+    s3FileStorage.delete(location);
+    assertThat(s3FileStorage.exists(location)).isFalse();
+    assertThatThrownBy(() -> s3FileStorage.size(location))
+        .isInstanceOf(FileNotFoundException.class);
+  }
+
+  @Test
+  void multipartPutDownloadCopyAndMove() throws IOException {
+    byte[] content = randomBytes(LARGE_LENGTH);
+    String location = location("large");
+    String copyLocation = location("copy");
+    String movedLocation = location("moved");
+
+    s3FileStorage.put(write(content), location);
+    assertThat(server.getUploadCount()).isZero();
+
+    Path target = tempDir.resolve("download");
+    s3FileStorage.download(location, target);
+    assertThat(target).hasBinaryContent(content);
+
+    s3FileStorage.copy(location, copyLocation);
+    s3FileStorage.move(copyLocation, movedLocation);
+    assertThat(s3FileStorage.exists(copyLocation)).isFalse();
+    try (InputStream in = s3FileStorage.get(movedLocation, 0, content.length)) {
+      assertThat(in.readAllBytes()).isEqualTo(content);
+    }
+    assertThat(server.getUploadCount()).isZero();
+
+    assertThat(s3FileStorage.list(s3FileStorage.resolve(s3FileStorage.getBaseLocation(),
+        "BOARD"))).containsExactlyInAnyOrder(location, movedLocation);
+  }
+
+  @Test
+  void readRangesThroughSeekableChannel() throws IOException {
+    byte[] content = randomBytes(LARGE_LENGTH);
+    String location = location("large");
+    s3FileStorage.put(write(content), location);
+
+    Random random = new Random(1);
+    try (SeekableByteChannel channel = s3FileStorage.open(location)) {
+      assertThat(channel.size()).isEqualTo(content.length);
+      for (int i = 0; i < 20; i++) {
+        int start = random.nextInt(content.length);
+        int length = 1 + random.nextInt(Math.min(2 * PART_SIZE, content.length - start));
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        channel.position(start);
+        while (buffer.hasRemaining()) {
+          assertThat(channel.read(buffer)).isPositive();
+        }
+        assertThat(buffer.array()).isEqualTo(Arrays.copyOfRange(content, start, start + length));
+      }
+    }
+  }
+
+  @Test
+  void decryptRangesFromS3() throws IOException {
+    FileCipher fileCipher = new AeadFileCipher(Algorithm.AES_GCM, "password", "salt");
+    FileCryptoService fileCryptoService = new FileCryptoService(fileProperties, fileCipher,
+        List.of(fileCipher), new SyncTaskExecutor(),
+        new FileStorageRegistry(fileProperties, List.of(s3FileStorage)),
+        mock(FileDeleteMapper.class));
+    byte[] content = randomBytes(LARGE_LENGTH);
+    String location = location("encrypted");
+
+    Path source = tempDir.resolve("encrypted");
+    fileCryptoService.encrypt(new ByteArrayInputStream(content), source);
+    s3FileStorage.put(source, location);
+
+    Random random = new Random(1);
+    for (int i = 0; i < 10; i++) {
+      int start = random.nextInt(content.length);
+      int length = random.nextInt(content.length - start + 1);
+      try (InputStream in = fileCryptoService.decrypt(location)) {
+        assertThat(in.skip(start)).isEqualTo(start);
+        assertThat(in.readNBytes(length))
+            .isEqualTo(Arrays.copyOfRange(content, start, start + length));
+      }
+    }
+  }
+
+  @Test
+  void openEncryptedFileWithTwoRangedGets() throws IOException {
+    FileCipher fileCipher = new AeadFileCipher(Algorithm.AES_GCM, "password", "salt");
+    FileCryptoService fileCryptoService = new FileCryptoService(fileProperties, fileCipher,
+        List.of(fileCipher), new SyncTaskExecutor(),
+        new FileStorageRegistry(fileProperties, List.of(s3FileStorage)),
+        mock(FileDeleteMapper.class));
+    byte[] content = randomBytes(LARGE_LENGTH);
+    String location = location("encrypted");
+
+    Path source = tempDir.resolve("encrypted");
+    fileCryptoService.encrypt(new ByteArrayInputStream(content), source);
+    s3FileStorage.put(source, location);
+
+    server.resetRequestCounts();
+    Resource resource = fileCryptoService.getResource(location);
+    assertThat(resource.contentLength()).isEqualTo(content.length);
+    assertThat(server.getRequestCount("HEAD")).isEqualTo(1);
+    assertThat(server.getRequestCount("GET")).isEqualTo(2);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((EncryptedFileResource) resource).transferTo(Channels.newChannel(out));
+    assertThat(out.toByteArray()).isEqualTo(content);
+    try (InputStream in = resource.getInputStream()) {
+      assertThat(in.skip(LARGE_LENGTH - 100)).isEqualTo(LARGE_LENGTH - 100);
+      assertThat(in.readAllBytes())
+          .isEqualTo(Arrays.copyOfRange(content, LARGE_LENGTH - 100, LARGE_LENGTH));
+    }
+  }
+
+  private String location(String name) {
+    return s3FileStorage.resolve(s3FileStorage.getBaseLocation(), "BOARD", name);
+  }
+
+  private Path write(byte[] content) throws IOException {
+    return Files.write(Files.createTempFile(tempDir, "source", null), content);
+  }
+
+  private static byte[] randomBytes(int length) {
+    byte[] bytes = new byte[length];
+    new Random(length).nextBytes(bytes);
+
+    return bytes;
+  }
+
+}
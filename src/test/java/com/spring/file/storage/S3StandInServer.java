@@ -0,0 +1,332 @@
+package com.spring.file.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * MinIO처럼 path-style로 접근하는 S3 호환 서버를 메모리로 흉내 낸다. {@link S3FileStorage}가 사용하는 API(객체
+ * PUT/GET(Range)/HEAD/DELETE, CopyObject, 멀티파트 업로드와 UploadPartCopy, ListObjectsV2)만 지원한다.
+ */
+class S3StandInServer implements AutoCloseable {
+
+  private static final String LAST_MODIFIED = "2024-01-01T00:00:00.000Z";
+
+  private final HttpServer server;
+
+  /**
+   * bucket/key -> 내용
+   */
+  private final NavigableMap<String, byte[]> objects = new ConcurrentSkipListMap<>();
+
+  /**
+   * uploadId -> partNumber -> 내용
+   */
+  private final Map<String, NavigableMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+
+  /**
+   * method -> 받은 요청 수
+   */
+  private final Map<String, AtomicInteger> requestCounts = new ConcurrentHashMap<>();
+
+  S3StandInServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", exchange -> {
+      try (exchange) {
+        handle(exchange);
+      } catch (IOException e) {
+        // 클라이언트가 범위 응답을 다 읽지 않고 연결을 끊은 경우
+      } catch (RuntimeException e) {
+        sendXml(exchange, 500, "<Error><Code>InternalError</Code><Message>" + e
+            + "</Message></Error>");
+      }
+    });
+    server.setExecutor(Executors.newCachedThreadPool());
+    server.start();
+  }
+
+  URI getEndpoint() {
+    return URI.create("http://localhost:" + server.getAddress().getPort());
+  }
+
+  /**
+   * 진행 중인(완료, 중단하지 않은) 멀티파트 업로드 수
+   */
+  int getUploadCount() {
+    return uploads.size();
+  }
+
+  int getRequestCount(String method) {
+    return requestCounts.getOrDefault(method, new AtomicInteger()).get();
+  }
+
+  void resetRequestCounts() {
+    requestCounts.clear();
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    String path = exchange.getRequestURI().getPath().substring(1);
+    Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+    String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+    requestCounts.computeIfAbsent(exchange.getRequestMethod(), key -> new AtomicInteger())
+        .incrementAndGet();
+
+    switch (exchange.getRequestMethod()) {
+      case "GET" -> {
+        if (query.containsKey("list-type")) {
+          list(exchange, path.endsWith("/") ? path.substring(0, path.length() - 1) : path,
+              query);
+        } else {
+          get(exchange, path);
+        }
+      }
+      case "HEAD" -> head(exchange, path);
+      case "PUT" -> {
+        if (query.containsKey("uploadId")) {
+          byte[] part = copySource != null
+              ? range(getCopySource(copySource),
+                  exchange.getRequestHeaders().getFirst("x-amz-copy-source-range"))
+              : readBody(exchange);
+          uploads.get(query.get("uploadId"))
+              .put(Integer.parseInt(query.get("partNumber")), part);
+          if (copySource != null) {
+            sendXml(exchange, 200, "<CopyPartResult><ETag>" + quotedETag(part)
+                + "</ETag><LastModified>" + LAST_MODIFIED + "</LastModified></CopyPartResult>");
+          } else {
+            exchange.getResponseHeaders().set("ETag", quotedETag(part));
+            exchange.sendResponseHeaders(200, -1);
+          }
+        } else if (copySource != null) {
+          byte[] content = getCopySource(copySource);
+          objects.put(path, content);
+          sendXml(exchange, 200, "<CopyObjectResult><ETag>" + quotedETag(content)
+              + "</ETag><LastModified>" + LAST_MODIFIED + "</LastModified></CopyObjectResult>");
+        } else {
+          byte[] content = readBody(exchange);
+          objects.put(path, content);
+          exchange.getResponseHeaders().set("ETag", quotedETag(content));
+          exchange.sendResponseHeaders(200, -1);
+        }
+      }
+      case "POST" -> {
+        if (query.containsKey("uploads")) {
+          String uploadId = UUID.randomUUID().toString();
+          uploads.put(uploadId, new ConcurrentSkipListMap<>());
+          sendXml(exchange, 200, "<InitiateMultipartUploadResult>" + bucketAndKey(path)
+              + "<UploadId>" + uploadId + "</UploadId></InitiateMultipartUploadResult>");
+        } else {
+          exchange.getRequestBody().readAllBytes();
+          ByteArrayOutputStream content = new ByteArrayOutputStream();
+          for (byte[] part : uploads.remove(query.get("uploadId")).values()) {
+            content.write(part);
+          }
+          objects.put(path, content.toByteArray());
+          sendXml(exchange, 200, "<CompleteMultipartUploadResult>" + bucketAndKey(path)
+              + "<ETag>" + quotedETag(content.toByteArray())
+              + "</ETag></CompleteMultipartUploadResult>");
+        }
+      }
+      case "DELETE" -> {
+        if (query.containsKey("uploadId")) {
+          uploads.remove(query.get("uploadId"));
+        } else {
+          objects.remove(path);
+        }
+        exchange.sendResponseHeaders(204, -1);
+      }
+      default -> exchange.sendResponseHeaders(405, -1);
+    }
+  }
+
+  private void get(HttpExchange exchange, String path) throws IOException {
+    byte[] content = objects.get(path);
+    if (content == null) {
+      sendXml(exchange, 404, "<Error><Code>NoSuchKey</Code><Key>" + path + "</Key></Error>");
+      return;
+    }
+
+    String range = exchange.getRequestHeaders().getFirst("Range");
+    byte[] body = range(content, range);
+    exchange.getResponseHeaders().set("Content-Type", "application/octet-stream");
+    exchange.getResponseHeaders().set("ETag", quotedETag(content));
+    if (range != null) {
+      long[] bounds = parseRange(range, content.length);
+      exchange.getResponseHeaders().set("Content-Range",
+          "bytes " + bounds[0] + "-" + bounds[1] + "/" + content.length);
+    }
+    exchange.sendResponseHeaders(range != null ? 206 : 200, body.length == 0 ? -1 : body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private void head(HttpExchange exchange, String path) throws IOException {
+    byte[] content = objects.get(path);
+    if (content == null) {
+      exchange.sendResponseHeaders(404, -1);
+      return;
+    }
+
+    // HEAD 응답은 sendResponseHeaders가 Content-Length를 기록하지 않으므로 직접 지정한다.
+    exchange.getResponseHeaders().set("Content-Length", String.valueOf(content.length));
+    exchange.getResponseHeaders().set("ETag", quotedETag(content));
+    exchange.sendResponseHeaders(200, -1);
+  }
+
+  /**
+   * 응답의 키는 SDK가 요청한 encoding-type=url에 맞추어 인코딩한다.
+   */
+  private void list(HttpExchange exchange, String bucket, Map<String, String> query)
+      throws IOException {
+    String prefix = query.getOrDefault("prefix", "");
+    boolean urlEncoding = "url".equals(query.get("encoding-type"));
+    String from = bucket + "/" + prefix;
+
+    StringBuilder contents = new StringBuilder();
+    int count = 0;
+    for (Map.Entry<String, byte[]> entry : objects.tailMap(from, true).entrySet()) {
+      if (!entry.getKey().startsWith(from)) {
+        break;
+      }
+      String key = entry.getKey().substring(bucket.length() + 1);
+      contents.append("<Contents><Key>")
+          .append(urlEncoding ? URLEncoder.encode(key, StandardCharsets.UTF_8) : key)
+          .append("</Key><Size>").append(entry.getValue().length)
+          .append("</Size><LastModified>").append(LAST_MODIFIED)
+          .append("</LastModified></Contents>");
+      count++;
+    }
+
+    sendXml(exchange, 200, "<ListBucketResult><Name>" + bucket + "</Name><Prefix>"
+        + (urlEncoding ? URLEncoder.encode(prefix, StandardCharsets.UTF_8) : prefix)
+        + "</Prefix><KeyCount>" + count + "</KeyCount><MaxKeys>1000</MaxKeys>"
+        + (urlEncoding ? "<EncodingType>url</EncodingType>" : "")
+        + "<IsTruncated>false</IsTruncated>" + contents + "</ListBucketResult>");
+  }
+
+  private byte[] getCopySource(String copySource) {
+    String source = URLDecoder.decode(copySource, StandardCharsets.UTF_8);
+    source = source.startsWith("/") ? source.substring(1) : source;
+    int versionIndex = source.indexOf("?versionId=");
+    return objects.get(versionIndex < 0 ? source : source.substring(0, versionIndex));
+  }
+
+  /**
+   * aws-chunked(서명한 청크 스트림)로 보낸 본문은 청크 헤더를 벗겨 낸다.
+   */
+  private static byte[] readBody(HttpExchange exchange) throws IOException {
+    byte[] body = exchange.getRequestBody().readAllBytes();
+    String contentSha256 = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+    if (contentSha256 == null || !contentSha256.startsWith("STREAMING-")) {
+      return body;
+    }
+
+    ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+    int position = 0;
+    while (position < body.length) {
+      int lineEnd = indexOfCrLf(body, position);
+      String header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+      int size = Integer.parseInt(header.split(";", 2)[0].trim(), 16);
+      if (size == 0) {
+        break;
+      }
+      decoded.write(body, lineEnd + 2, size);
+      position = lineEnd + 2 + size + 2;
+    }
+
+    return decoded.toByteArray();
+  }
+
+  private static int indexOfCrLf(byte[] b, int from) {
+    for (int i = from; i < b.length - 1; i++) {
+      if (b[i] == '\r' && b[i + 1] == '\n') {
+        return i;
+      }
+    }
+    throw new IllegalArgumentException("aws-chunked 본문이 올바르지 않습니다.");
+  }
+
+  private static byte[] range(byte[] content, String range) {
+    if (range == null) {
+      return content;
+    }
+
+    long[] bounds = parseRange(range, content.length);
+    byte[] body = new byte[(int) (bounds[1] - bounds[0] + 1)];
+    System.arraycopy(content, (int) bounds[0], body, 0, body.length);
+    return body;
+  }
+
+  /**
+   * bytes=start-end. end는 포함하며 객체 크기를 넘으면 마지막 바이트로 줄인다.
+   */
+  private static long[] parseRange(String range, long length) {
+    String[] values = range.substring("bytes=".length()).split("-", 2);
+    long start = Long.parseLong(values[0]);
+    long end = values[1].isEmpty() ? length - 1 : Math.min(Long.parseLong(values[1]), length - 1);
+    return new long[]{start, end};
+  }
+
+  private static Map<String, String> parseQuery(String rawQuery) {
+    if (rawQuery == null || rawQuery.isEmpty()) {
+      return Map.of();
+    }
+
+    Map<String, String> query = new HashMap<>();
+    for (String pair : rawQuery.split("&")) {
+      String[] values = pair.split("=", 2);
+      query.put(URLDecoder.decode(values[0], StandardCharsets.UTF_8),
+          values.length > 1 ? URLDecoder.decode(values[1], StandardCharsets.UTF_8) : "");
+    }
+    return query;
+  }
+
+  private static String bucketAndKey(String path) {
+    int index = path.indexOf('/');
+    return "<Bucket>" + path.substring(0, index) + "</Bucket><Key>" + path.substring(index + 1)
+        + "</Key>";
+  }
+
+  private static void sendXml(HttpExchange exchange, int status, String xml) throws IOException {
+    byte[] body = ("<?xml version=\"1.0\" encoding=\"UTF-8\"?>" + xml)
+        .getBytes(StandardCharsets.UTF_8);
+    exchange.getResponseHeaders().set("Content-Type", "application/xml");
+    exchange.sendResponseHeaders(status, body.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(body);
+    }
+  }
+
+  private static String quotedETag(byte[] content) {
+    try {
+      return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content))
+          + "\"";
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+}
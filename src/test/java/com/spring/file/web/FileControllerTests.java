@@ -0,0 +1,190 @@
+package com.spring.file.web;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.spring.file.image.ImageResizeRejectedException;
+import com.spring.file.metrics.FileMetrics;
+import com.spring.file.model.FileDeleteByFileIdsResponseDto;
+import com.spring.file.model.FileDto;
+import com.spring.file.model.FileUploadResponseDto;
+import com.spring.file.model.FileUploadedDto;
+import com.spring.file.properties.FileProperties;
+import com.spring.file.service.FileService;
+import com.spring.file.service.FileUploadSessionService;
+import com.spring.file.util.FileIdUtils;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.server.ResponseStatusException;
+
+@WebMvcTest(FileController.class)
+class FileControllerTests {
+
+  private static final byte[] CONTENT = "hello".getBytes(StandardCharsets.UTF_8);
+
+  private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+
+  @Autowired
+  private MockMvc mockMvc;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  @MockBean
+  private FileService fileService;
+
+  @MockBean
+  private FileUploadSessionService fileUploadSessionService;
+
+  @MockBean
+  private FileProperties fileProperties;
+
+  @MockBean
+  private FileMetrics fileMetrics;
+
+  @BeforeEach
+  void setUp() {
+    given(fileProperties.getCacheControl(any())).willReturn(CACHE_CONTROL);
+  }
+
+  @Test
+  void uploadDownloadAndDeleteByVersion7FileId() throws Exception {
+    String fileId = FileIdUtils.newFileId();
+    assertThat(UUID.fromString(fileId).version()).isEqualTo(7);
+
+    given(fileService.upload(any())).willReturn(FileUploadResponseDto.builder()
+        .files(List.of(FileUploadedDto.builder()
+            .fileId(fileId)
+            .fileName("hello")
+            .fileExtension("txt")
+            .fileSize(CONTENT.length)
+            .build()))
+        .build());
+    given(fileService.findByFileId(fileId)).willReturn(FileDto.builder()
+        .fileId(fileId)
+        .fileName("hello")
+        .fileExtension("txt")
+        .fileSize(CONTENT.length)
+        .serviceCode("test")
+        .build());
+    given(fileService.getResource(any())).willReturn(new ByteArrayResource(CONTENT));
+    given(fileService.deleteByFileIds(argThat(requestDto ->
+        requestDto.getFileIds().equals(List.of(fileId)))))
+        .willReturn(FileDeleteByFileIdsResponseDto.builder()
+            .count(1)
+            .build());
+
+    mockMvc.perform(multipart("/files/upload")
+            .file(new MockMultipartFile("files", "hello.txt", MediaType.TEXT_PLAIN_VALUE,
+                CONTENT))
+            .param("serviceCode", "test"))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.files[0].fileId").value(fileId));
+
+    mockMvc.perform(get("/files/{fileId}/attach", fileId))
+        .andExpect(status().isOk())
+        .andExpect(content().bytes(CONTENT));
+
+    mockMvc.perform(get("/files/{fileId}/inline", fileId))
+        .andExpect(status().isOk())
+        .andExpect(content().bytes(CONTENT));
+
+    mockMvc.perform(delete("/files/by-file-ids")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(Map.of("fileIds", List.of(fileId)))))
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.count").value(1));
+  }
+
+  @Test
+  void setCacheControlOnlyOnSuccessAndNotModified() throws Exception {
+    String fileId = FileIdUtils.newFileId();
+    given(fileService.findByFileId(fileId)).willReturn(FileDto.builder()
+        .fileId(fileId)
+        .fileName("image")
+        .fileExtension("png")
+        .serviceCode("test")
+        .build());
+    given(fileService.getResource(any())).willReturn(new ByteArrayResource(CONTENT));
+    given(fileService.getResizeResource(any(), anyInt(), anyInt()))
+        .willThrow(new ResponseStatusException(HttpStatus.NOT_FOUND));
+
+    mockMvc.perform(get("/files/{fileId}/inline", fileId))
+        .andExpect(status().isOk())
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL));
+
+    mockMvc.perform(get("/files/{fileId}/inline", fileId)
+            .header(HttpHeaders.IF_NONE_MATCH, "\"" + fileId + "\""))
+        .andExpect(status().isNotModified())
+        .andExpect(header().string(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL));
+
+    mockMvc.perform(get("/files/{fileId}/resize", fileId)
+            .param("width", "100")
+            .param("height", "100"))
+        .andExpect(status().isNotFound())
+        .andExpect(header().doesNotExist(HttpHeaders.CACHE_CONTROL));
+  }
+
+  @Test
+  void answerServiceUnavailableOnlyForResizeRejection() throws Exception {
+    String fileId = FileIdUtils.newFileId();
+    given(fileProperties.getResizeRetryAfterSeconds()).willReturn(3);
+    given(fileService.findByFileId(fileId)).willReturn(FileDto.builder()
+        .fileId(fileId)
+        .fileName("image")
+        .fileExtension("png")
+        .serviceCode("test")
+        .build());
+    given(fileService.getResizeResource(any(), anyInt(), anyInt()))
+        .willThrow(new ImageResizeRejectedException("full", new TaskRejectedException("full")));
+    given(fileService.getResource(any())).willThrow(new TaskRejectedException("full"));
+
+    mockMvc.perform(get("/files/{fileId}/resize", fileId)
+            .param("width", "100")
+            .param("height", "100"))
+        .andExpect(status().isServiceUnavailable())
+        .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+
+    // 다른 executor의 거절은 resize 응답으로 바꾸지 않는다.
+    assertThatThrownBy(() -> mockMvc.perform(get("/files/{fileId}/inline", fileId)))
+        .hasRootCauseInstanceOf(TaskRejectedException.class);
+  }
+
+  @Test
+  void rejectInvalidFileId() throws Exception {
+    mockMvc.perform(get("/files/{fileId}/attach", "not-a-uuid"))
+        .andExpect(status().isBadRequest());
+
+    mockMvc.perform(delete("/files/by-file-ids")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(objectMapper.writeValueAsBytes(Map.of("fileIds", List.of("not-a-uuid")))))
+        .andExpect(status().isBadRequest());
+  }
+
+}